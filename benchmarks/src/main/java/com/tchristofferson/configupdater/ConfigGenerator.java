@@ -0,0 +1,104 @@
+package com.tchristofferson.configupdater;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates YAML configs of a given size and nesting depth for the benchmarks.
+ * <p>
+ * Leaf keys are spread over top level groups, each group nests {@code depth - 1} sections before its leaves.
+ * There are always at least {@link #MIN_GROUPS} groups, so any of them can be used as an ignored section.
+ */
+final class ConfigGenerator {
+
+    static final int MIN_GROUPS = 50;
+
+    private ConfigGenerator() {
+    }
+
+    /**
+     * Generates a config with roughly the given amount of leaf keys.
+     *
+     * @param keys  the amount of leaf keys to generate.
+     * @param depth the amount of section levels above each leaf key, at least 1.
+     * @param stale true to generate an outdated copy of the config, missing some keys, having different values and containing obsolete keys.
+     * @return the generated YAML content.
+     */
+    static String generate(int keys, int depth, boolean stale) {
+        int groups = Math.max(MIN_GROUPS, keys / 10);
+        int leavesPerGroup = Math.max(1, keys / groups);
+        StringBuilder builder = new StringBuilder("# Generated benchmark config\n# keys: ").append(keys).append(", depth: ").append(depth).append("\n\n");
+
+        for (int group = 0; group < groups; group++) {
+            builder.append("# Group ").append(group).append(" comment\n");
+            builder.append(getGroupKey(group)).append(":\n");
+            String indents = "  ";
+
+            for (int level = 1; level < depth; level++) {
+                builder.append(indents).append("level").append(level).append(":\n");
+                indents += "  ";
+            }
+
+            for (int leaf = 0; leaf < leavesPerGroup; leaf++) {
+                int n = group * leavesPerGroup + leaf;
+
+                if (stale && n % 50 == 49)
+                    continue;
+
+                if (n % 5 == 0)
+                    builder.append(indents).append("# Comment for key ").append(n).append("\n");
+
+                builder.append(indents).append("key").append(n).append(":");
+                appendValue(builder, indents, n, stale);
+            }
+
+            if (stale && group % 10 == 0)
+                builder.append(indents).append("obsolete").append(group).append(": true\n");
+        }
+
+        builder.append("# Dangling comment\n");
+        return builder.toString();
+    }
+
+    /**
+     * Gets the paths of the first {@code count} top level groups, to use as ignored sections.
+     *
+     * @param count the amount of ignored sections.
+     * @return the list of ignored section paths.
+     */
+    static List<String> getIgnoredSections(int count) {
+        List<String> ignoredSections = new ArrayList<>(count);
+
+        for (int group = 0; group < count; group++) {
+            ignoredSections.add(getGroupKey(group));
+        }
+
+        return ignoredSections;
+    }
+
+    private static String getGroupKey(int group) {
+        return "group" + group;
+    }
+
+    private static void appendValue(StringBuilder builder, String indents, int n, boolean stale) {
+        switch (n % 5) {
+            case 0:
+                builder.append(" Plain string value ").append(n).append("\n");
+                break;
+            case 1:
+                builder.append(" ").append(stale ? n + 1 : n).append("\n");
+                break;
+            case 2:
+                builder.append(" ").append(n % 2 == 0).append("\n");
+                break;
+            case 3:
+                builder.append("\n");
+                for (int i = 0; i < 3; i++) {
+                    builder.append(indents).append("- item ").append(i).append("\n");
+                }
+                break;
+            default:
+                builder.append(" 'Quoted: value ").append(n).append("'\n");
+        }
+    }
+}
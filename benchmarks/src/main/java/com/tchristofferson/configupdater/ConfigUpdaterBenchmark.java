@@ -0,0 +1,175 @@
+package com.tchristofferson.configupdater;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.openjdk.jmh.annotations.*;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.*;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link ConfigUpdater#update(Plugin, String, File, List)} and its phases.
+ * <p>
+ * Build with {@code mvn package} and run with {@code java -jar target/benchmarks.jar}, add {@code -prof gc} for allocation rates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigUpdaterBenchmark {
+
+    private static final String RESOURCE_NAME = "config.yml";
+
+    @State(Scope.Benchmark)
+    public static class Fixture {
+
+        @Param({"100", "1000", "10000", "100000"})
+        public int keys;
+
+        @Param({"1", "3", "6"})
+        public int depth;
+
+        @Param({"0", "10", "50"})
+        public int ignoredSections;
+
+        Path directory;
+        Plugin plugin;
+        List<String> ignored;
+        String defaultContent;
+        byte[] staleBytes;
+        //Already matches the merged output, so updating it only renders and compares
+        File upToDate;
+        FileConfiguration defaultConfig;
+        UpdateTemplate template;
+        FileConfiguration currentConfig;
+        Yaml yaml;
+        Map<Object, Object> currentValues;
+        Map<String, String> ignoredSectionsValues;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            defaultContent = ConfigGenerator.generate(keys, depth, false);
+            byte[] defaultBytes = defaultContent.getBytes(StandardCharsets.UTF_8);
+            directory = Files.createTempDirectory("config-updater-benchmark");
+            plugin = stubPlugin(defaultBytes);
+            ignored = ConfigGenerator.getIgnoredSections(ignoredSections);
+            staleBytes = ConfigGenerator.generate(keys, depth, true).getBytes(StandardCharsets.UTF_8);
+
+            upToDate = directory.resolve("up-to-date.yml").toFile();
+            Files.write(upToDate.toPath(), staleBytes);
+            ConfigUpdater.update(plugin, RESOURCE_NAME, upToDate, ignored);
+
+            defaultConfig = YamlConfiguration.loadConfiguration(new StringReader(defaultContent));
+            currentConfig = YamlConfiguration.loadConfiguration(Files.newBufferedReader(upToDate.toPath(), StandardCharsets.UTF_8));
+            yaml = ConfigUpdater.getYamlReader();
+            currentValues = ConfigUpdater.loadValues(yaml, new String(Files.readAllBytes(upToDate.toPath()), StandardCharsets.UTF_8));
+            template = UpdateTemplate.compile(defaultContent);
+            ignoredSectionsValues = ConfigUpdater.parseIgnoredSections(currentValues, template, ignored, yaml);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(directory.resolve("stale.yml"));
+            Files.deleteIfExists(upToDate.toPath());
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class StaleFile {
+
+        File file;
+
+        //Each invocation needs an outdated file, otherwise only the first one would write
+        @Setup(Level.Invocation)
+        public void reset(Fixture fixture) throws IOException {
+            file = fixture.directory.resolve("stale.yml").toFile();
+            Files.write(file.toPath(), fixture.staleBytes);
+        }
+    }
+
+    @Benchmark
+    public void updateUpToDate(Fixture fixture) throws IOException {
+        ConfigUpdater.update(fixture.plugin, RESOURCE_NAME, fixture.upToDate, fixture.ignored);
+    }
+
+    @Benchmark
+    public void updateStale(Fixture fixture, StaleFile staleFile) throws IOException {
+        ConfigUpdater.update(fixture.plugin, RESOURCE_NAME, staleFile.file, fixture.ignored);
+    }
+
+    @Benchmark
+    public Map<String, String> parseComments(Fixture fixture) throws IOException {
+        return ConfigUpdater.parseComments(fixture.defaultContent, fixture.defaultConfig);
+    }
+
+    @Benchmark
+    public UpdateTemplate compileTemplate(Fixture fixture) throws IOException {
+        return UpdateTemplate.compile(fixture.defaultContent);
+    }
+
+    @Benchmark
+    public Map<String, String> parseIgnoredSections(Fixture fixture) {
+        return ConfigUpdater.parseIgnoredSections(fixture.currentValues, fixture.template, fixture.ignored, fixture.yaml);
+    }
+
+    @Benchmark
+    public void write(Fixture fixture) throws IOException {
+        ConfigUpdater.write(fixture.template, fixture.currentConfig, new BufferedWriter(new DiscardingWriter()), fixture.ignoredSectionsValues);
+    }
+
+    /**
+     * Creates a {@link Plugin} that only answers {@link Plugin#getResource(String)}, like the mocked plugin in the tests.
+     *
+     * @param resource the bytes of the default config inside the "JAR".
+     * @return the stub plugin.
+     */
+    private static Plugin stubPlugin(byte[] resource) {
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getResource":
+                    return RESOURCE_NAME.equals(args[0]) ? new ByteArrayInputStream(resource) : null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "BenchmarkPlugin";
+                default:
+                    Class<?> returnType = method.getReturnType();
+
+                    if (returnType == boolean.class)
+                        return false;
+
+                    return returnType.isPrimitive() && returnType != void.class ? 0 : null;
+            }
+        });
+    }
+
+    /**
+     * A writer that discards everything, so {@code write} is measured without building the output.
+     */
+    private static final class DiscardingWriter extends Writer {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
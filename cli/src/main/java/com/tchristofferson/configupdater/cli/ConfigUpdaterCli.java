@@ -0,0 +1,316 @@
+package com.tchristofferson.configupdater.cli;
+
+import com.tchristofferson.configupdater.ConfigUpdater;
+import com.tchristofferson.configupdater.UpdateJob;
+import com.tchristofferson.configupdater.UpdateOptions;
+import com.tchristofferson.configupdater.UpdateResult;
+import com.tchristofferson.configupdater.UpdateTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Updates the configs of many servers at once, without running them, against the default files inside plugin JARs.
+ * <p>
+ * Every directory named 'plugins' below the servers directory is a server's plugin folder. Each YAML file inside the data
+ * folder of a plugin, like 'plugins/MyPlugin/config.yml' or 'plugins/MyPlugin/lang/en.yml', is updated against the file
+ * with the same path inside the JAR of the plugin with that name. Files without a default file are left alone.
+ */
+public final class ConfigUpdaterCli {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar config-updater-cli.jar --jars <directory> --servers <directory> [options]",
+            "  --jars <directory>          the directory containing the plugin JARs",
+            "  --servers <directory>       the directory containing the server folders, searched recursively",
+            "  --ignore <plugin>/<file>:<section>",
+            "                              keep a section of a plugin's file unchanged, like MyPlugin/config.yml:kits; can be repeated",
+            "  --threads <amount>          the amount of files updated at once, defaults to the amount of processors",
+            "  --lock                      lock each file while it's updated, for servers or other runs updating it at the same time",
+            "  --quiet                     only print failed files and the summary");
+
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private File jarsDirectory;
+    private File serversDirectory;
+    //Ignored sections by the plugin and the path of their file, like 'MyPlugin/config.yml'
+    private final Map<String, List<String>> ignoredSections = new HashMap<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean quiet;
+    private UpdateOptions options = UpdateOptions.defaults();
+
+    ConfigUpdaterCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(new ConfigUpdaterCli(System.out, System.err).run(args));
+    }
+
+    /**
+     * Runs the CLI.
+     *
+     * @param args the command line arguments.
+     * @return the exit code: 0 if every file was updated, 1 if a file failed and 2 if the arguments are invalid.
+     */
+    int run(String[] args) {
+        try {
+            parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        List<PluginJar> jars;
+        List<Path> pluginFolders;
+        Map<String, PluginJar> jarsByName = new HashMap<>();
+        List<UpdateJob> jobs = new ArrayList<>();
+        int failed;
+
+        try {
+            jars = readJars();
+        } catch (IOException e) {
+            err.println("Failed to scan the directories: " + e);
+            return EXIT_FAILED;
+        }
+
+        try {
+            pluginFolders = findPluginFolders(serversDirectory.toPath());
+
+            for (PluginJar jar : jars) {
+                PluginJar previous = jarsByName.put(jar.getName(), jar);
+
+                if (previous != null)
+                    err.println("Both " + previous.getFile() + " and " + jar.getFile() + " contain the plugin " + jar.getName() + ", using the last one");
+            }
+
+            failed = createJobs(pluginFolders, jarsByName, jobs);
+        } catch (IOException e) {
+            err.println("Failed to scan the directories: " + e);
+            return EXIT_FAILED;
+        } finally {
+            //The templates of all jobs are compiled, the updates don't read the JARs
+            closeJars(jars);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<UpdateResult> results;
+
+        try {
+            results = ConfigUpdater.updateAll(jobs, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        int written = 0;
+
+        for (UpdateResult result : results) {
+            if (!result.isSuccess()) {
+                failed++;
+                err.println("FAILED  " + result.getFile() + ": " + result.getError());
+            } else if (result.isWritten()) {
+                written++;
+
+                if (!quiet)
+                    out.println("UPDATED " + result.getFile());
+            }
+        }
+
+        out.println("Checked " + results.size() + " files in " + pluginFolders.size() + " plugin folders with " + jarsByName.size()
+                + " plugins in " + (System.nanoTime() - start) / 1_000_000 + "ms: " + written + " updated, " + failed + " failed");
+        return failed == 0 ? 0 : EXIT_FAILED;
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            if (arg.equals("--quiet")) {
+                quiet = true;
+                continue;
+            }
+
+            if (arg.equals("--lock")) {
+                options = options.withFileLock(true);
+                continue;
+            }
+
+            if (i + 1 == args.length)
+                throw new IllegalArgumentException("Unknown argument or missing value: " + arg);
+
+            String value = args[++i];
+
+            switch (arg) {
+                case "--jars":
+                    jarsDirectory = new File(value);
+                    break;
+                case "--servers":
+                    serversDirectory = new File(value);
+                    break;
+                case "--ignore":
+                    int fileEnd = value.indexOf(':');
+
+                    //Every ignored section must exist in the file, so sections are always ignored in a single file
+                    if (fileEnd == -1 || value.indexOf('/') == -1 || value.indexOf('/') > fileEnd)
+                        throw new IllegalArgumentException("Ignored sections must be written as <plugin>/<file>:<section>: " + value);
+
+                    ignoredSections.computeIfAbsent(value.substring(0, fileEnd), file -> new ArrayList<>()).add(value.substring(fileEnd + 1));
+                    break;
+                case "--threads":
+                    try {
+                        threads = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("The amount of threads isn't a number: " + value);
+                    }
+
+                    if (threads < 1)
+                        throw new IllegalArgumentException("The amount of threads must be at least 1!");
+
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+
+        if (jarsDirectory == null || !jarsDirectory.isDirectory())
+            throw new IllegalArgumentException("The JARs directory doesn't exist: " + jarsDirectory);
+
+        if (serversDirectory == null || !serversDirectory.isDirectory())
+            throw new IllegalArgumentException("The servers directory doesn't exist: " + serversDirectory);
+    }
+
+    private void closeJars(List<PluginJar> jars) {
+        for (PluginJar jar : jars) {
+            try {
+                jar.close();
+            } catch (IOException e) {
+                err.println("Failed to close " + jar.getFile() + ": " + e);
+            }
+        }
+    }
+
+    private List<PluginJar> readJars() throws IOException {
+        List<PluginJar> jars = new ArrayList<>();
+        List<Path> jarFiles;
+
+        try (Stream<Path> files = Files.list(jarsDirectory.toPath())) {
+            jarFiles = files.filter(path -> path.getFileName().toString().endsWith(".jar")).sorted().collect(Collectors.toList());
+        }
+
+        for (Path jarFile : jarFiles) {
+            try {
+                PluginJar jar = PluginJar.read(jarFile.toFile());
+
+                if (jar == null) {
+                    err.println("Skipping " + jarFile + ", it doesn't contain a plugin.yml with a name");
+                } else {
+                    jars.add(jar);
+                }
+            } catch (IOException | RuntimeException e) {
+                err.println("Skipping " + jarFile + ", it can't be read: " + e);
+            }
+        }
+
+        return jars;
+    }
+
+    /**
+     * Finds the plugin folders of all servers. The plugin folders themselves aren't searched for more servers, and
+     * neither are hidden directories.
+     *
+     * @param serversDirectory the directory containing the servers.
+     * @return the plugin folders.
+     * @throws IOException if an I/O error occurs while searching.
+     */
+    private static List<Path> findPluginFolders(Path serversDirectory) throws IOException {
+        List<Path> pluginFolders = new ArrayList<>();
+
+        Files.walkFileTree(serversDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+
+                if (name.equals("plugins")) {
+                    pluginFolders.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                return name.startsWith(".") && !dir.equals(serversDirectory) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Collections.sort(pluginFolders);
+        return pluginFolders;
+    }
+
+    /**
+     * Creates a job for each file with a default file inside the JAR of its plugin.
+     *
+     * @param pluginFolders the plugin folders of the servers.
+     * @param jarsByName    the JARs by the name of their plugin.
+     * @param jobs          the list the jobs are added to.
+     * @return the amount of files that can't be updated because their default file couldn't be read.
+     */
+    private int createJobs(List<Path> pluginFolders, Map<String, PluginJar> jarsByName, List<UpdateJob> jobs) {
+        int failed = 0;
+
+        for (Path pluginFolder : pluginFolders) {
+            for (PluginJar jar : jarsByName.values()) {
+                Path dataFolder = pluginFolder.resolve(jar.getName());
+
+                if (!Files.isDirectory(dataFolder))
+                    continue;
+
+                List<Path> files;
+
+                try (Stream<Path> walk = Files.walk(dataFolder)) {
+                    files = walk.filter(path -> path.getFileName().toString().endsWith(".yml") && Files.isRegularFile(path))
+                            .sorted()
+                            .collect(Collectors.toList());
+                } catch (IOException | UncheckedIOException e) {
+                    failed++;
+                    err.println("FAILED  " + dataFolder + ": " + e);
+                    continue;
+                }
+
+                for (Path file : files) {
+                    //Resource names inside JARs always use '/'
+                    String resourceName = dataFolder.relativize(file).toString().replace(File.separatorChar, '/');
+
+                    List<String> ignoredSections = this.ignoredSections.getOrDefault(jar.getName() + '/' + resourceName, Collections.emptyList());
+
+                    try {
+                        UpdateTemplate template = jar.getTemplate(resourceName);
+
+                        if (template != null)
+                            jobs.add(new UpdateJob(template, file.toFile(), ignoredSections).withOptions(options));
+                    } catch (IOException | RuntimeException e) {
+                        failed++;
+                        err.println("FAILED  " + file + ", the default file " + resourceName + " in " + jar.getFile() + " can't be read: " + e);
+                    }
+                }
+            }
+        }
+
+        return failed;
+    }
+}
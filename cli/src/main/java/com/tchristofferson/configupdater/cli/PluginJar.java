@@ -0,0 +1,127 @@
+package com.tchristofferson.configupdater.cli;
+
+import com.google.common.io.ByteStreams;
+import com.tchristofferson.configupdater.JarResourceCache;
+import com.tchristofferson.configupdater.ResourceSource;
+import com.tchristofferson.configupdater.UpdateTemplate;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A plugin JAR the default files are read from, identified by the name in its plugin.yml. The JAR is kept open until
+ * it's closed, which is done once the templates of all files are compiled.
+ */
+final class PluginJar implements Closeable {
+
+    private final File file;
+    private final String name;
+    private final JarResourceCache source;
+    //Each default file is compiled once and shared by every server, empty if the JAR doesn't contain it
+    private final Map<String, Optional<UpdateTemplate>> templates = new HashMap<>();
+
+    private PluginJar(File file, String name, JarResourceCache source) {
+        this.file = file;
+        this.name = name;
+        this.source = source;
+    }
+
+    /**
+     * Reads the plugin.yml of a JAR.
+     *
+     * @param file the JAR file.
+     * @return the plugin JAR, or null if the JAR isn't a plugin.
+     * @throws IOException if an I/O error occurs while reading the JAR.
+     */
+    static PluginJar read(File file) throws IOException {
+        //Nothing is cached, the templates already keep the content that's needed
+        JarResourceCache source = new JarResourceCache(file, 0);
+        PluginJar jar = null;
+
+        try {
+            String name = readName(source);
+
+            if (name != null)
+                jar = new PluginJar(file, name, source);
+
+            return jar;
+        } finally {
+            //Only the JARs of plugins stay open
+            if (jar == null)
+                source.close();
+        }
+    }
+
+    private static String readName(ResourceSource source) throws IOException {
+        InputStream pluginYml = source.open("plugin.yml");
+
+        if (pluginYml == null)
+            return null;
+
+        Object description;
+
+        try (Reader reader = new InputStreamReader(pluginYml, StandardCharsets.UTF_8)) {
+            description = new Yaml().load(reader);
+        }
+
+        if (!(description instanceof Map))
+            return null;
+
+        Object name = ((Map<?, ?>) description).get("name");
+        return name == null ? null : name.toString();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the template of a default file inside the JAR.
+     *
+     * @param resourceName the path of the file inside the JAR.
+     * @return the template, or null if the JAR doesn't contain the file.
+     * @throws IOException if an I/O error occurs while reading or compiling the file.
+     */
+    synchronized UpdateTemplate getTemplate(String resourceName) throws IOException {
+        Optional<UpdateTemplate> template = templates.get(resourceName);
+
+        if (template == null) {
+            InputStream resource = source.open(resourceName);
+
+            if (resource == null) {
+                template = Optional.empty();
+            } else {
+                try (InputStream in = resource) {
+                    template = Optional.of(UpdateTemplate.of(ByteStreams.toByteArray(in)));
+                }
+            }
+
+            templates.put(resourceName, template);
+        }
+
+        return template.orElse(null);
+    }
+
+    /**
+     * Closes the JAR. Templates that were already compiled can still be used.
+     *
+     * @throws IOException if an I/O error occurs while closing the JAR.
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
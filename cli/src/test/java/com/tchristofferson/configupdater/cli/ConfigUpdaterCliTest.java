@@ -0,0 +1,177 @@
+package com.tchristofferson.configupdater.cli;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ConfigUpdaterCliTest {
+
+    private static final String DEFAULT_CONFIG = "#The kits of the server\nkits: {}\nenabled: true\nmax-players: 10\n";
+
+    private Path directory;
+    private Path jars;
+    private Path servers;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("config-updater-cli");
+        jars = Files.createDirectory(directory.resolve("jars"));
+        servers = Files.createDirectory(directory.resolve("servers"));
+    }
+
+    @After
+    public void after() throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdatesConfigsOfAllServers() throws IOException {
+        writeJar(jars.resolve("MyPlugin.jar"), "plugin.yml", "name: MyPlugin\nmain: com.example.MyPlugin\n", "config.yml", DEFAULT_CONFIG, "lang/en.yml", "greeting: Hello\n");
+        //The JAR isn't a plugin and is skipped
+        writeJar(jars.resolve("library.jar"), "config.yml", DEFAULT_CONFIG);
+
+        Path lobbyConfig = write(servers.resolve("lobby/plugins/MyPlugin/config.yml"), "kits:\n  starter: [sword, 'bread']\nenabled: false\nobsolete: 1\n");
+        //Servers can be nested in other directories
+        Path survivalLang = write(servers.resolve("network/survival/plugins/MyPlugin/lang/en.yml"), "");
+        //Without a default file inside the JAR
+        Path data = write(servers.resolve("lobby/plugins/MyPlugin/data.yml"), "players: 3\n");
+        //Neither hidden directories nor plugin folders are searched for servers
+        Path backup = write(servers.resolve(".backup/plugins/MyPlugin/config.yml"), "obsolete: 1\n");
+        Path nested = write(servers.resolve("lobby/plugins/Other/plugins/MyPlugin/config.yml"), "obsolete: 1\n");
+
+        assertEquals(0, run("--jars", jars.toString(), "--servers", servers.toString(), "--ignore", "MyPlugin/config.yml:kits", "--threads", "2"));
+        assertEquals("#The kits of the server\nkits:\n  starter: [sword, 'bread']\nenabled: false\nmax-players: 10\n", read(lobbyConfig));
+        assertEquals("greeting: Hello\n", read(survivalLang));
+        assertEquals("players: 3\n", read(data));
+        assertEquals("obsolete: 1\n", read(backup));
+        assertEquals("obsolete: 1\n", read(nested));
+
+        String output = out.toString("UTF-8");
+        assertTrue(output, output.contains("2 updated, 0 failed"));
+        assertTrue(err.toString("UTF-8").contains("library.jar"));
+    }
+
+    @Test
+    public void testLastJarOfDuplicatePluginIsUsed() throws IOException {
+        writeJar(jars.resolve("a-MyPlugin.jar"), "plugin.yml", "name: MyPlugin\n", "config.yml", "old: true\n");
+        writeJar(jars.resolve("b-MyPlugin.jar"), "plugin.yml", "name: MyPlugin\n", "config.yml", "new: true\n");
+        Path config = write(servers.resolve("plugins/MyPlugin/config.yml"), "old: true\n");
+
+        assertEquals(0, run("--jars", jars.toString(), "--servers", servers.toString(), "--quiet"));
+        assertEquals("new: true\n", read(config));
+        assertTrue(err.toString("UTF-8").contains("contain the plugin MyPlugin"));
+        assertFalse(out.toString("UTF-8").contains("UPDATED"));
+    }
+
+    @Test
+    public void testFailedFileExitCode() throws IOException {
+        writeJar(jars.resolve("MyPlugin.jar"), "plugin.yml", "name: MyPlugin\n", "config.yml", DEFAULT_CONFIG);
+        Path invalid = write(servers.resolve("plugins/MyPlugin/config.yml"), "kits: [unclosed\n");
+        Path valid = write(servers.resolve("other/plugins/MyPlugin/config.yml"), "enabled: false\n");
+
+        assertEquals(1, run("--jars", jars.toString(), "--servers", servers.toString()));
+        assertEquals("kits: [unclosed\n", read(invalid));
+        assertTrue(read(valid).contains("max-players: 10"));
+        assertTrue(err.toString("UTF-8").contains("FAILED  " + invalid));
+        assertTrue(out.toString("UTF-8").contains("1 updated, 1 failed"));
+    }
+
+    @Test
+    public void testJarsAreClosedAfterRun() throws IOException {
+        Path fileDescriptors = Paths.get("/proc/self/fd");
+        //The open files of the process can only be listed on Linux
+        Assume.assumeTrue(Files.isDirectory(fileDescriptors));
+
+        writeJar(jars.resolve("MyPlugin.jar"), "plugin.yml", "name: MyPlugin\n", "config.yml", DEFAULT_CONFIG);
+        writeJar(jars.resolve("library.jar"), "config.yml", DEFAULT_CONFIG);
+        write(servers.resolve("plugins/MyPlugin/config.yml"), "enabled: false\n");
+
+        assertEquals(0, run("--jars", jars.toString(), "--servers", servers.toString()));
+        assertEquals(0, countOpenFiles(fileDescriptors, jars));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        String jarsArg = jars.toString();
+        String serversArg = servers.toString();
+
+        assertEquals(2, run("--jars", jarsArg));
+        assertEquals(2, run("--jars", jarsArg, "--servers", directory.resolve("missing").toString()));
+        assertEquals(2, run("--jars", jarsArg, "--servers", serversArg, "--ignore", "MyPlugin/config.yml"));
+        assertEquals(2, run("--jars", jarsArg, "--servers", serversArg, "--ignore", "config.yml:kits"));
+        assertEquals(2, run("--jars", jarsArg, "--servers", serversArg, "--threads", "0"));
+        assertEquals(2, run("--jars", jarsArg, "--servers", serversArg, "--threads", "many"));
+        assertEquals(2, run("--jars", jarsArg, "--servers", serversArg, "--unknown", "value"));
+        assertEquals(2, run("--jars", jarsArg, "--servers", serversArg, "--unknown"));
+        assertTrue(err.toString().contains("Usage:"));
+    }
+
+    private int run(String... args) {
+        return new ConfigUpdaterCli(new PrintStream(out, true), new PrintStream(err, true)).run(args);
+    }
+
+    private static long countOpenFiles(Path fileDescriptors, Path directory) throws IOException {
+        Path realDirectory = directory.toRealPath();
+        long count = 0;
+
+        try (Stream<Path> descriptors = Files.list(fileDescriptors)) {
+            for (Path descriptor : (Iterable<Path>) descriptors::iterator) {
+                try {
+                    if (Files.readSymbolicLink(descriptor).startsWith(realDirectory))
+                        count++;
+                } catch (IOException e) {
+                    //The descriptor was closed after it was listed, like the one of the listing itself
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a JAR containing resources.
+     *
+     * @param file      the JAR file.
+     * @param resources the name of each resource, followed by its content.
+     */
+    private static void writeJar(Path file, String... resources) throws IOException {
+        try (OutputStream fileOut = Files.newOutputStream(file); ZipOutputStream zipOut = new ZipOutputStream(fileOut)) {
+            for (int i = 0; i < resources.length; i += 2) {
+                zipOut.putNextEntry(new ZipEntry(resources[i]));
+                zipOut.write(resources[i + 1].getBytes(StandardCharsets.UTF_8));
+                zipOut.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.tchristofferson.configupdater.maven;
+
+import com.tchristofferson.configupdater.TemplateIndex;
+import com.tchristofferson.configupdater.UpdateTemplate;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds a {@link TemplateIndex} next to each default YAML file of the build output, so the JAR contains the precompiled
+ * keys and comments of its default files and updates don't parse them on every server start.
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;com.tchristofferson&lt;/groupId&gt;
+ *     &lt;artifactId&gt;ConfigUpdater-maven-plugin&lt;/artifactId&gt;
+ *     &lt;version&gt;...&lt;/version&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;goals&gt;
+ *                 &lt;goal&gt;index&lt;/goal&gt;
+ *             &lt;/goals&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ */
+@Mojo(name = "index", defaultPhase = LifecyclePhase.PROCESS_RESOURCES, threadSafe = true)
+public class IndexMojo extends AbstractMojo {
+
+    private static final List<String> DEFAULT_INCLUDES = Arrays.asList("**.yml", "**.yaml");
+    //Descriptions of the plugin itself, which are never updated
+    private static final List<String> DEFAULT_EXCLUDES = Arrays.asList("plugin.yml", "paper-plugin.yml", "bungee.yml");
+
+    /**
+     * The directory containing the resources copied for the JAR.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File outputDirectory;
+
+    /**
+     * Glob patterns of the files to index, relative to the output directory. Defaults to every YAML file.
+     */
+    @Parameter
+    private List<String> includes;
+
+    /**
+     * Glob patterns of the files not to index, relative to the output directory. Defaults to the plugin descriptions.
+     */
+    @Parameter
+    private List<String> excludes;
+
+    /**
+     * Skips building the indexes.
+     */
+    @Parameter(property = "configupdater.index.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping the config indexes");
+            return;
+        }
+
+        if (!outputDirectory.isDirectory()) {
+            getLog().info("No resources to index in " + outputDirectory);
+            return;
+        }
+
+        Path root = outputDirectory.toPath();
+        List<PathMatcher> includeMatchers = toMatchers(includes == null ? DEFAULT_INCLUDES : includes);
+        List<PathMatcher> excludeMatchers = toMatchers(excludes == null ? DEFAULT_EXCLUDES : excludes);
+        List<Path> files;
+
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(file -> matches(includeMatchers, root.relativize(file)) && !matches(excludeMatchers, root.relativize(file)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            throw new MojoExecutionException("Failed to search " + outputDirectory + " for YAML files", e);
+        }
+
+        for (Path file : files) {
+            index(file, root.relativize(file));
+        }
+
+        getLog().info("Indexed " + files.size() + " YAML files in " + outputDirectory);
+    }
+
+    private void index(Path file, Path resourcePath) throws MojoExecutionException {
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            String content = new String(bytes, StandardCharsets.UTF_8);
+
+            //Bukkit only logs invalid YAML when loading it, the build should fail instead
+            try {
+                new YamlConfiguration().loadFromString(content);
+            } catch (InvalidConfigurationException e) {
+                throw new MojoExecutionException("The default file " + resourcePath + " isn't valid YAML", e);
+            }
+
+            Path index = file.resolveSibling(TemplateIndex.getIndexName(file.getFileName().toString()));
+
+            try (OutputStream out = Files.newOutputStream(index)) {
+                //Compiled from the bytes, so the index has the same hash as the resource read at runtime
+                TemplateIndex.write(UpdateTemplate.of(bytes), out);
+            }
+
+            getLog().debug("Indexed " + resourcePath);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to index " + resourcePath, e);
+        }
+    }
+
+    private static List<PathMatcher> toMatchers(List<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>(patterns.size());
+
+        for (String pattern : patterns) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+
+        return matchers;
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path))
+                return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,286 @@
+package com.tchristofferson.configupdater;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * The comments of a YAML resource, kept as the line ranges of the resource they were read from instead of as
+ * separate strings. Each comment line is trimmed and indented while it's written, so comments are never copied.
+ * <p>
+ * The comments of a key are the comment and blank lines above it. List elements between them are skipped, and any
+ * other line that isn't a key of the resource discards the comments above it.
+ */
+final class CommentSpans {
+
+    private final String content;
+    //The start and the end of the lines holding the comments of each key, by the ordinal of the key
+    private final int[] starts;
+    private final int[] ends;
+    private final int danglingStart;
+    private final int danglingEnd;
+
+    private CommentSpans(String content, int[] starts, int[] ends, int danglingStart, int danglingEnd) {
+        this.content = content;
+        this.starts = starts;
+        this.ends = ends;
+        this.danglingStart = danglingStart;
+        this.danglingEnd = danglingEnd;
+    }
+
+    /**
+     * Finds the comments of each key of a YAML resource.
+     *
+     * @param content     the content of the resource, which is kept for writing the comments.
+     * @param keyOrdinals the ordinal of each full key of the resource.
+     * @return the comments of the resource.
+     */
+    static CommentSpans parse(String content, Map<String, Integer> keyOrdinals) {
+        int[] starts = new int[keyOrdinals.size()];
+        int[] ends = new int[keyOrdinals.size()];
+        Arrays.fill(starts, -1);
+        //The sections the current line can be nested in, with the indentation of their key line
+        Deque<String> parentKeys = new ArrayDeque<>();
+        Deque<Integer> parentIndents = new ArrayDeque<>();
+        int lastOrdinal = -1;
+        //The start of the first comment line since the last key, or -1 if there is none
+        int commentStart = -1;
+        int lineStart = 0;
+
+        while (lineStart < content.length()) {
+            int lineEnd = lineEnd(content, lineStart);
+            int trimmedStart = trimmedStart(content, lineStart, lineEnd);
+            int trimmedEnd = trimmedEnd(content, trimmedStart, lineEnd);
+            int next = nextLine(content, lineEnd);
+
+            //Only getting comments for keys. A list/array element comment(s) not supported
+            if (trimmedStart < trimmedEnd && content.charAt(trimmedStart) == '-') {
+                lineStart = next;
+                continue;
+            }
+
+            if (trimmedStart == trimmedEnd || content.charAt(trimmedStart) == '#') {//Is blank line or is comment
+                if (commentStart == -1)
+                    commentStart = lineStart;
+
+                lineStart = next;
+                continue;
+            }
+
+            //Leaves every section that isn't indented less than this line
+            int indent = 0;
+            while (content.charAt(lineStart + indent) == ' ') {
+                indent++;
+            }
+
+            while (!parentIndents.isEmpty() && parentIndents.peek() >= indent) {
+                parentIndents.pop();
+                parentKeys.pop();
+            }
+
+            String key = KeyUtils.parseKey(content.substring(trimmedStart, trimmedEnd));
+            String fullKey = parentKeys.isEmpty() ? key : parentKeys.peek() + ConfigUpdater.SEPARATOR + key;
+            Integer ordinal = keyOrdinals.get(fullKey);
+
+            //Not a key of the config, like a key of a map inside a list. Its comments can't be written back
+            if (ordinal == null || ordinal <= lastOrdinal) {
+                commentStart = -1;
+                lineStart = next;
+                continue;
+            }
+
+            lastOrdinal = ordinal;
+            parentKeys.push(fullKey);
+            parentIndents.push(indent);
+
+            if (commentStart != -1) {
+                starts[ordinal] = commentStart;
+                ends[ordinal] = lineStart;
+                commentStart = -1;
+            }
+
+            lineStart = next;
+        }
+
+        return new CommentSpans(content, starts, ends, commentStart, content.length());
+    }
+
+    /**
+     * Writes the comment spans of each key, so they can be read again for the same content without parsing it.
+     *
+     * @param out the output to write the spans to.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    void write(DataOutput out) throws IOException {
+        for (int i = 0; i < starts.length; i++) {
+            out.writeInt(starts[i]);
+
+            if (starts[i] != -1)
+                out.writeInt(ends[i]);
+        }
+
+        out.writeInt(danglingStart);
+    }
+
+    /**
+     * Reads comment spans written by {@link #write(DataOutput)}.
+     *
+     * @param in      the input to read the spans from.
+     * @param content the content the spans were found in.
+     * @param size    the amount of keys of the content.
+     * @return the comments of the content.
+     * @throws IOException if an I/O error occurs while reading, or if a span is outside of the content.
+     */
+    static CommentSpans read(DataInput in, String content, int size) throws IOException {
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            starts[i] = in.readInt();
+
+            if (starts[i] != -1) {
+                ends[i] = in.readInt();
+                checkSpan(starts[i], ends[i], content);
+            }
+        }
+
+        int danglingStart = in.readInt();
+
+        if (danglingStart != -1)
+            checkSpan(danglingStart, content.length(), content);
+
+        return new CommentSpans(content, starts, ends, danglingStart, content.length());
+    }
+
+    private static void checkSpan(int start, int end, String content) throws IOException {
+        if (start < 0 || start > end || end > content.length())
+            throw new IOException("Comment span " + start + "-" + end + " is outside of the content");
+    }
+
+    /**
+     * Checks whether a key has comments.
+     *
+     * @param ordinal the ordinal of the key.
+     * @return true if there are comments above the key.
+     */
+    boolean hasComment(int ordinal) {
+        return starts[ordinal] != -1;
+    }
+
+    /**
+     * Writes the comments of a key, each line indented at the depth of the writer.
+     *
+     * @param ordinal the ordinal of the key.
+     * @param writer  the writer to write the comments to, at the depth of the key.
+     * @throws IOException if an I/O error occurs while writing the comments.
+     */
+    void write(int ordinal, IndentingWriter writer) throws IOException {
+        if (starts[ordinal] != -1)
+            write(starts[ordinal], ends[ordinal], writer);
+    }
+
+    /**
+     * Writes the comments after the last key, without indentation.
+     *
+     * @param writer the writer to write the comments to.
+     * @throws IOException if an I/O error occurs while writing the comments.
+     */
+    void writeDangling(IndentingWriter writer) throws IOException {
+        if (danglingStart != -1) {
+            writer.setDepth(0);
+            write(danglingStart, danglingEnd, writer);
+        }
+    }
+
+    /**
+     * Gets the comments of a key as a string.
+     *
+     * @param ordinal the ordinal of the key.
+     * @return the trimmed comment lines, each ending with a line break, or null if the key has no comments.
+     */
+    String get(int ordinal) {
+        return starts[ordinal] == -1 ? null : toString(starts[ordinal], ends[ordinal]);
+    }
+
+    /**
+     * Gets the comments after the last key as a string.
+     *
+     * @return the trimmed comment lines, each ending with a line break, or null if there are none.
+     */
+    String getDangling() {
+        return danglingStart == -1 ? null : toString(danglingStart, danglingEnd);
+    }
+
+    private String toString(int start, int end) {
+        StringWriter writer = new StringWriter(end - start);
+
+        try (IndentingWriter indentingWriter = new IndentingWriter(writer, 0)) {
+            write(start, end, indentingWriter);
+        } catch (IOException e) {
+            //StringWriter doesn't throw
+            throw new AssertionError(e);
+        }
+
+        return writer.toString();
+    }
+
+    private void write(int start, int end, IndentingWriter writer) throws IOException {
+        int lineStart = start;
+
+        while (lineStart < end) {
+            int lineEnd = lineEnd(content, lineStart);
+            int trimmedStart = trimmedStart(content, lineStart, lineEnd);
+            int trimmedEnd = trimmedEnd(content, trimmedStart, lineEnd);
+
+            //List elements between the comments aren't part of them
+            if (trimmedStart == trimmedEnd || content.charAt(trimmedStart) != '-') {
+                //Writes the part of the content directly, without copying it into a new string first
+                writer.writeIndent();
+                writer.write(content, trimmedStart, trimmedEnd - trimmedStart);
+                writer.write('\n');
+            }
+
+            lineStart = nextLine(content, lineEnd);
+        }
+    }
+
+    //Lines end the same way as with BufferedReader.readLine, at '\n', '\r' or "\r\n"
+    private static int lineEnd(String content, int from) {
+        int i = from;
+
+        while (i < content.length() && content.charAt(i) != '\n' && content.charAt(i) != '\r') {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static int nextLine(String content, int lineEnd) {
+        if (lineEnd == content.length())
+            return lineEnd;
+
+        if (content.charAt(lineEnd) == '\r' && lineEnd + 1 < content.length() && content.charAt(lineEnd + 1) == '\n')
+            return lineEnd + 2;
+
+        return lineEnd + 1;
+    }
+
+    //Same characters as String.trim
+    private static int trimmedStart(String content, int start, int end) {
+        while (start < end && content.charAt(start) <= ' ') {
+            start++;
+        }
+
+        return start;
+    }
+
+    private static int trimmedEnd(String content, int start, int end) {
+        while (end > start && content.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        return end;
+    }
+}
@@ -0,0 +1,252 @@
+package com.tchristofferson.configupdater;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * An output stream that compares everything written to it against the current content of a file, without buffering the output.
+ * <p>
+ * Nothing is written while the output matches the current content. At the first difference, the matching part of the
+ * content is copied to a temporary file next to it and the rest of the output follows. {@link #commit()} then moves the
+ * temporary file over the file, so the file is never left truncated or partially written. The file keeps its permissions
+ * and owner, and a symbolic link to the file keeps pointing to it.
+ */
+final class CompareAndWriteOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path target;
+    private final byte[] currentBytes;
+    private final InputStream currentContent;
+    //The hash of the part of the content read from the target that matched, to find out if it changed before it's copied
+    private final MessageDigest matchedDigest;
+    private final MessageDigest digest;
+    private final byte[] compareBuffer = new byte[BUFFER_SIZE];
+    //The amount of bytes written that match the current content, only counted until the first difference
+    private long matched;
+    private long size;
+    //The file the target resolves to, which is replaced instead of a symbolic link to it
+    private Path realTarget;
+    private Path tempPath;
+    private OutputStream temp;
+    private boolean committed;
+
+    /**
+     * Constructs a new stream comparing against the current content of the target.
+     *
+     * @param target       the file to write to if the output differs.
+     * @param currentBytes the current content of the target, or null to read it from the target as a stream.
+     * @param hashOutput   true to compute the hash of the output, see {@link #getHash()}.
+     * @throws IOException if an I/O error occurs while opening the target.
+     */
+    CompareAndWriteOutputStream(Path target, byte[] currentBytes, boolean hashOutput) throws IOException {
+        this.target = target;
+        this.currentBytes = currentBytes;
+        this.currentContent = currentBytes == null ? Files.newInputStream(target) : new ByteArrayInputStream(currentBytes);
+        this.matchedDigest = currentBytes == null ? UpdateTemplate.newDigest() : null;
+        this.digest = hashOutput ? UpdateTemplate.newDigest() : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        size += len;
+
+        if (digest != null)
+            digest.update(b, off, len);
+
+        if (temp == null) {
+            if (matches(b, off, len)) {
+                matched += len;
+
+                if (matchedDigest != null)
+                    matchedDigest.update(b, off, len);
+
+                return;
+            }
+
+            openTemp();
+        }
+
+        temp.write(b, off, len);
+    }
+
+    /**
+     * Compares bytes against the next bytes of the current content.
+     *
+     * @return true if the current content continues with exactly these bytes.
+     */
+    private boolean matches(byte[] b, int off, int len) throws IOException {
+        int compared = 0;
+
+        while (compared < len) {
+            int read = currentContent.read(compareBuffer, 0, Math.min(compareBuffer.length, len - compared));
+
+            if (read == -1)
+                return false;
+
+            for (int i = 0; i < read; i++) {
+                if (compareBuffer[i] != b[off + compared + i])
+                    return false;
+            }
+
+            compared += read;
+        }
+
+        return true;
+    }
+
+    /**
+     * Starts writing to a temporary file, beginning with the part of the current content that matched.
+     */
+    private void openTemp() throws IOException {
+        realTarget = target.toRealPath();
+        tempPath = Files.createTempFile(realTarget.getParent(), "." + realTarget.getFileName(), ".tmp");
+        temp = new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE);
+
+        if (currentBytes != null) {
+            temp.write(currentBytes, 0, (int) matched);
+            return;
+        }
+
+        //Only the hash of the compared part is kept, the part copied from the target has to be exactly the same
+        MessageDigest copiedDigest = UpdateTemplate.newDigest();
+
+        try (InputStream in = Files.newInputStream(realTarget)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = matched;
+
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+
+                if (read == -1)
+                    throw new IOException("The file " + target + " was modified while it was being updated!");
+
+                copiedDigest.update(buffer, 0, read);
+                temp.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+
+        if (!Arrays.equals(matchedDigest.digest(), copiedDigest.digest()))
+            throw new IOException("The file " + target + " was modified while it was being updated!");
+    }
+
+    /**
+     * Gives the temporary file the permissions, owner and group of the target, which a new file doesn't have.
+     */
+    private void copyAttributes() throws IOException {
+        PosixFileAttributeView targetView = Files.getFileAttributeView(realTarget, PosixFileAttributeView.class);
+
+        //Other file systems, like on Windows, give new files the permissions of their directory
+        if (targetView == null)
+            return;
+
+        PosixFileAttributes attributes = targetView.readAttributes();
+        PosixFileAttributeView tempView = Files.getFileAttributeView(tempPath, PosixFileAttributeView.class);
+        tempView.setPermissions(attributes.permissions());
+
+        try {
+            tempView.setGroup(attributes.group());
+            tempView.setOwner(attributes.owner());
+        } catch (FileSystemException e) {
+            //Only root can give a file to another user, the file is then owned by the user updating it
+        }
+    }
+
+    /**
+     * Replaces the target with the output, if it differs from the current content.
+     *
+     * @return true if the target was written; false if the output matched the current content.
+     * @throws IOException if an I/O error occurs while replacing the target.
+     */
+    boolean commit() throws IOException {
+        //The output can match the start of the current content and still be shorter
+        boolean differs = temp != null || currentContent.read() != -1;
+        //The current content may be read from the target, which has to be closed before the target is replaced
+        currentContent.close();
+
+        if (!differs)
+            return false;
+
+        if (temp == null)
+            openTemp();
+
+        temp.close();
+        copyAttributes();
+
+        try {
+            Files.move(tempPath, realTarget, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, realTarget, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        committed = true;
+        return true;
+    }
+
+    /**
+     * Deletes the temporary file if the output wasn't committed, for example because rendering it failed.
+     *
+     * @throws IOException if an I/O error occurs while deleting the temporary file.
+     */
+    void discard() throws IOException {
+        currentContent.close();
+
+        if (temp == null || committed)
+            return;
+
+        temp.close();
+        Files.deleteIfExists(tempPath);
+    }
+
+    /**
+     * Gets the hash of everything written to this stream.
+     *
+     * @return the hex encoded SHA-256 hash of the output.
+     * @throws IllegalStateException if this stream wasn't constructed to hash the output.
+     */
+    String getHash() {
+        if (digest == null)
+            throw new IllegalStateException("The output isn't hashed!");
+
+        return UpdateTemplate.toHex(digest.digest());
+    }
+
+    /**
+     * Gets the amount of bytes written to this stream.
+     *
+     * @return the size of the output.
+     */
+    long getSize() {
+        return size;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (temp != null)
+            temp.flush();
+    }
+
+    //Closing the writers on top of this stream must not end the update, commit() and discard() do
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
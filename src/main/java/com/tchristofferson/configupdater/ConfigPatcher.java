@@ -0,0 +1,144 @@
+package com.tchristofferson.configupdater;
+
+import java.util.*;
+
+/**
+ * Patches the current content of a file with the keys that were added and removed by an update, leaving every other
+ * line as it is.
+ * <p>
+ * Added keys are copied from the updated content, together with their comments, and placed after the key that comes
+ * before them in the updated content. Removed keys are deleted together with their comments.
+ */
+final class ConfigPatcher {
+
+    private ConfigPatcher() {}
+
+    /**
+     * Patches content with the keys that were added and removed.
+     *
+     * @param currentContent the current content of the file.
+     * @param currentKeys    the keys the current content loads to.
+     * @param mergedContent  the content a full update writes.
+     * @param mergedKeys     the keys the content of a full update loads to.
+     * @param added          the keys of the merged content that aren't in the current content.
+     * @param removed        the keys of the current content that aren't in the merged content.
+     * @param separator      the separator between each part of the keys.
+     * @return the patched content, or null if the lines of the keys can't be found reliably.
+     */
+    static String patch(String currentContent, Set<String> currentKeys, String mergedContent, Set<String> mergedKeys,
+                        Collection<String> added, Collection<String> removed, char separator) {
+        KeyLines current = KeyLines.scan(currentContent, separator);
+        KeyLines merged = KeyLines.scan(mergedContent, separator);
+
+        if (current.hasDuplicateKeys() || merged.hasDuplicateKeys()
+                || !current.getKeys().equals(currentKeys) || !merged.getKeys().equals(mergedKeys))
+            return null;
+
+        List<String> lines = current.getLines();
+        boolean[] deleted = new boolean[lines.size()];
+        Set<String> removedKeys = new HashSet<>(removed);
+
+        for (String key : removed) {
+            //Keys inside a removed section are deleted with it
+            if (removedKeys.contains(getParent(key, separator)))
+                continue;
+
+            Arrays.fill(deleted, current.getStart(key), current.getEnd(key), true);
+        }
+
+        //Lines to insert before each line of the current content, the last element is for the end of the content
+        List<List<String>> insertions = new ArrayList<>(Collections.nCopies(lines.size() + 1, null));
+        List<String> mergedKeyList = new ArrayList<>(merged.getKeys());
+        Set<String> addedKeys = new HashSet<>(added);
+
+        for (int i = 0; i < mergedKeyList.size(); i++) {
+            String key = mergedKeyList.get(i);
+            String parent = getParent(key, separator);
+
+            //Keys inside an added section are inserted with it
+            if (!addedKeys.contains(key) || addedKeys.contains(parent))
+                continue;
+
+            String previous = findSibling(mergedKeyList, i, -1, parent, current, separator);
+            String next = previous == null ? findSibling(mergedKeyList, i, 1, parent, current, separator) : null;
+            int position;
+            int indentation;
+
+            if (previous != null) {
+                position = current.getEnd(previous);
+                indentation = current.getIndentation(previous);
+            } else if (next != null) {
+                position = current.getStart(next);
+                indentation = current.getIndentation(next);
+            } else if (parent != null) {
+                position = current.getKeyLine(parent) + 1;
+                indentation = current.getIndentation(parent) + merged.getIndentation(key) - merged.getIndentation(parent);
+            } else {
+                position = lines.size();
+                indentation = merged.getIndentation(key);
+            }
+
+            List<String> insertion = insertions.get(position);
+
+            if (insertion == null)
+                insertions.set(position, insertion = new ArrayList<>());
+
+            List<String> mergedLines = merged.getLines();
+            int shift = indentation - merged.getIndentation(key);
+
+            for (int line = merged.getStart(key); line < merged.getEnd(key); line++) {
+                insertion.add(KeyLines.shiftLine(KeyLines.stripLineSeparator(mergedLines.get(line)), shift) + current.getLineSeparator());
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(currentContent.length());
+
+        for (int i = 0; i <= lines.size(); i++) {
+            List<String> insertion = insertions.get(i);
+
+            if (insertion != null) {
+                //The last line of the content may not end with a line separator
+                if (builder.length() > 0 && builder.charAt(builder.length() - 1) != '\n')
+                    builder.append(current.getLineSeparator());
+
+                insertion.forEach(builder::append);
+            }
+
+            if (i < lines.size() && !deleted[i])
+                builder.append(lines.get(i));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Finds the closest key in the same section as a key that is also in the current content.
+     *
+     * @param keys      the keys in the order they are written.
+     * @param index     the index of the key to find a sibling of.
+     * @param direction -1 to find the sibling before the key, 1 to find the sibling after it.
+     * @param parent    the parent key of the key, or null if it isn't inside a section.
+     * @param current   the lines of the current content.
+     * @param separator the separator between each part of the keys.
+     * @return the sibling, or null if there is no such sibling.
+     */
+    private static String findSibling(List<String> keys, int index, int direction, String parent, KeyLines current, char separator) {
+        for (int i = index + direction; i >= 0 && i < keys.size(); i += direction) {
+            String key = keys.get(i);
+
+            //The keys of a section are written between the section and the next key outside of it
+            if (parent != null && !KeyUtils.isSubKeyOf(parent, key, separator))
+                return null;
+
+            if (current.contains(key) && Objects.equals(parent, getParent(key, separator)))
+                return key;
+        }
+
+        return null;
+    }
+
+    private static String getParent(String key, char separator) {
+        int separatorIndex = key.lastIndexOf(separator);
+        return separatorIndex == -1 ? null : key.substring(0, separatorIndex);
+    }
+}
@@ -0,0 +1,213 @@
+package com.tchristofferson.configupdater;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Watches files and updates them when they are created, replaced or edited, for example by deploy tooling.
+ * <p>
+ * Events are debounced: a file is only updated once no event for it arrived for the debounce delay, so a burst of
+ * writes results in a single update. Updates run on a background thread and their results are passed to a listener
+ * on that thread. Writes made by the watcher itself don't trigger another update.
+ * <p>
+ * The watcher must be closed when it is no longer needed, for example in the plugin's onDisable method.
+ */
+public final class ConfigUpdateWatcher implements Closeable {
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    private final WatchService watchService;
+    private final ScheduledExecutorService scheduler;
+    private final long debounceMillis;
+    private final Consumer<UpdateResult> listener;
+    private final Map<Path, UpdateJob> jobs = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Map<Path, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    //The hash of the content the watcher last wrote to each file
+    private final Map<Path, String> writtenHashes = new ConcurrentHashMap<>();
+    private Thread pollingThread;
+
+    /**
+     * Constructs a new watcher that updates files half a second after their last change.
+     *
+     * @param listener the listener receiving the result of each update, called on the watcher's thread.
+     * @throws IOException if the watch service can't be created.
+     */
+    public ConfigUpdateWatcher(Consumer<UpdateResult> listener) throws IOException {
+        this(DEFAULT_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS, listener);
+    }
+
+    /**
+     * Constructs a new watcher.
+     *
+     * @param debounce the time without changes to a file before it is updated.
+     * @param unit     the unit of the debounce time.
+     * @param listener the listener receiving the result of each update, called on the watcher's thread.
+     * @throws IOException if the watch service can't be created.
+     */
+    public ConfigUpdateWatcher(long debounce, TimeUnit unit, Consumer<UpdateResult> listener) throws IOException {
+        Preconditions.checkArgument(debounce >= 0, "The debounce time can't be negative!");
+        this.debounceMillis = unit.toMillis(debounce);
+        this.listener = Objects.requireNonNull(listener, "listener");
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(UpdateExecutors.daemonThreads("ConfigUpdater-Watcher-"));
+    }
+
+    /**
+     * Starts watching the file of a job. The file is updated with the job whenever it changes, replacing any job
+     * previously watching the same file.
+     *
+     * @param job the file to update and what to update it against.
+     * @throws IOException if the directory of the file can't be watched.
+     */
+    public synchronized void watch(UpdateJob job) throws IOException {
+        Path path = normalize(job.getFile());
+        Path directory = path.getParent();
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        directories.put(key, directory);
+        jobs.put(path, job);
+
+        if (pollingThread == null) {
+            pollingThread = UpdateExecutors.daemonThreads("ConfigUpdater-WatchService-").newThread(this::poll);
+            pollingThread.start();
+        }
+    }
+
+    /**
+     * Stops watching a file. An update of the file that is already running still completes.
+     *
+     * @param file the file to stop watching.
+     */
+    public void unwatch(File file) {
+        Path path = normalize(file);
+        jobs.remove(path);
+        writtenHashes.remove(path);
+        PendingUpdate pendingUpdate = pendingUpdates.remove(path);
+
+        if (pendingUpdate != null)
+            pendingUpdate.future.cancel(false);
+    }
+
+    /**
+     * Stops watching all files and stops the watcher's threads. Pending updates are discarded.
+     *
+     * @throws IOException if an I/O error occurs while closing the watch service.
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        watchService.close();
+    }
+
+    private void poll() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = directories.get(key);
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (directory == null)
+                        continue;
+
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        //Events were lost, any file in the directory may have changed
+                        jobs.keySet().stream().filter(path -> directory.equals(path.getParent())).forEach(this::scheduleUpdate);
+                        continue;
+                    }
+
+                    Path path = directory.resolve((Path) event.context());
+
+                    //Other files in the directory, like the temporary files of updates, are ignored
+                    if (jobs.containsKey(path))
+                        scheduleUpdate(path);
+                }
+
+                if (!key.reset())
+                    directories.remove(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            //The watcher was closed
+        }
+    }
+
+    private void scheduleUpdate(Path path) {
+        pendingUpdates.compute(path, (p, pendingUpdate) -> {
+            if (pendingUpdate != null)
+                pendingUpdate.future.cancel(false);
+
+            PendingUpdate update = new PendingUpdate(p);
+
+            try {
+                update.future = scheduler.schedule(update, debounceMillis, TimeUnit.MILLISECONDS);
+                return update;
+            } catch (RejectedExecutionException e) {
+                //The watcher was closed
+                return null;
+            }
+        });
+    }
+
+    private void update(Path path) {
+        UpdateJob job = jobs.get(path);
+
+        //The file may have been unwatched, or deleted while it's being replaced
+        if (job == null || !Files.exists(path))
+            return;
+
+        //The content is compared, an edit can keep the size and last modified time of the file
+        String writtenHash = writtenHashes.get(path);
+
+        if (writtenHash != null && writtenHash.equals(hash(path)))
+            return;
+
+        UpdateResult result = ConfigUpdater.run(job, true);
+
+        if (result.isWritten())
+            writtenHashes.put(path, result.getContentHash());
+
+        listener.accept(result);
+    }
+
+    private static String hash(Path path) {
+        try {
+            return UpdateTemplate.hash(path);
+        } catch (IOException e) {
+            //Updating the file reports the error
+            return null;
+        }
+    }
+
+    private static Path normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * An update of a file waiting for the debounce delay to pass.
+     */
+    private final class PendingUpdate implements Runnable {
+
+        private final Path path;
+        //Set while the update is put in the pending updates, before anything else can get it from there
+        private ScheduledFuture<?> future;
+
+        private PendingUpdate(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public void run() {
+            //An event arriving while the file is updated schedules a newer update, which must stay cancellable
+            pendingUpdates.remove(path, this);
+            update(path);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.bukkit.configuration.file.YamlRepresenter;
 import org.bukkit.plugin.Plugin;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
 import org.yaml.snakeyaml.representer.Representer;
 
 import java.io.*;
@@ -17,12 +18,24 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class ConfigUpdater {
 
     //Used for separating keys in the keyBuilder inside parseComments method
-    private static final char SEPARATOR = '.';
+    static final char SEPARATOR = '.';
     private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    //Yaml isn't thread safe, so every thread updating files reuses its own writer
+    private static final ThreadLocal<Yaml> YAML_WRITER = ThreadLocal.withInitial(ConfigUpdater::getYamlWriter);
+    //Listeners receiving the metrics of every update
+    private static final List<UpdateListener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final Logger LOGGER = Logger.getLogger(ConfigUpdater.class.getName());
 
 	/**
 	 * Update the YAML file inside the plugin folder, only if it does not match the file from the JAR.
@@ -51,189 +64,939 @@ public class ConfigUpdater {
 	 *                     is a directory rather than a regular file, or for some other reason cannot be opened for reading.
 	 */
     public static void update(Plugin plugin, String resourceName, File toUpdate, List<String> ignoredSections) throws IOException {
+        update(plugin, resourceName, toUpdate, ignoredSections, UpdateOptions.defaults());
+    }
+
+    /**
+     * Update the YAML file inside the plugin folder, only if it does not match the file from the JAR.
+     *
+     * @param plugin          the main class instance where you extend JavaPlugin.
+     * @param resourceName    the path to your original YAML file inside the JAR.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of
+     *                        the ignored section and the value is the YAML content to keep unchanged.
+     * @param options         the options used to update the file.
+     * @throws IOException if an I/O error occurs when writing to BufferedWriter or if the file does not exist,
+     *                     is a directory rather than a regular file, or for some other reason cannot be opened for reading.
+     */
+    public static void update(Plugin plugin, String resourceName, File toUpdate, List<String> ignoredSections, UpdateOptions options) throws IOException {
+        updateIfChanged(new UpdateJob(plugin, resourceName, toUpdate, ignoredSections).withOptions(options), false);
+    }
+
+    /**
+     * Update the YAML file inside the plugin folder, only if it does not match the template.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the array of ignored section values, where each element represents the full path or the first path of the ignored section
+     *                        and the value is the YAML content to keep unchanged.
+     * @throws IOException if an I/O error occurs when writing to BufferedWriter or if the file does not exist,
+     *                     is a directory rather than a regular file, or for some other reason cannot be opened for reading.
+     */
+    public static void update(UpdateTemplate template, File toUpdate, String... ignoredSections) throws IOException {
+        update(template, toUpdate, Arrays.asList(ignoredSections));
+    }
+
+    /**
+     * Update the YAML file inside the plugin folder, only if it does not match the template.
+     * Use this to update many files against the same default YAML file without compiling it again.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of
+     *                        the ignored section and the value is the YAML content to keep unchanged.
+     * @throws IOException if an I/O error occurs when writing to BufferedWriter or if the file does not exist,
+     *                     is a directory rather than a regular file, or for some other reason cannot be opened for reading.
+     */
+    public static void update(UpdateTemplate template, File toUpdate, List<String> ignoredSections) throws IOException {
+        update(template, toUpdate, ignoredSections, UpdateOptions.defaults());
+    }
+
+    /**
+     * Update the YAML file inside the plugin folder, only if it does not match the template.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of
+     *                        the ignored section and the value is the YAML content to keep unchanged.
+     * @param options         the options used to update the file.
+     * @throws IOException if an I/O error occurs when writing to BufferedWriter or if the file does not exist,
+     *                     is a directory rather than a regular file, or for some other reason cannot be opened for reading.
+     */
+    public static void update(UpdateTemplate template, File toUpdate, List<String> ignoredSections, UpdateOptions options) throws IOException {
+        updateIfChanged(new UpdateJob(template, toUpdate, ignoredSections).withOptions(options), false);
+    }
+
+    /**
+     * Checks if the YAML file inside the plugin folder is missing keys of the file from the JAR, or has keys the file from
+     * the JAR doesn't have. Only the keys are compared, comments aren't parsed and nothing is written.
+     *
+     * @param plugin          the main class instance where you extend JavaPlugin.
+     * @param resourceName    the path to your original YAML file inside the JAR.
+     * @param toUpdate        the file you want to check.
+     * @param ignoredSections the array of ignored sections, whose keys aren't compared.
+     * @return true if keys are missing or obsolete; otherwise, false.
+     * @throws IOException if an I/O error occurs when reading the files.
+     */
+    public static boolean needsUpdate(Plugin plugin, String resourceName, File toUpdate, String... ignoredSections) throws IOException {
+        return needsUpdate(plugin, resourceName, toUpdate, Arrays.asList(ignoredSections));
+    }
+
+    /**
+     * Checks if the YAML file inside the plugin folder is missing keys of the file from the JAR, or has keys the file from
+     * the JAR doesn't have. Only the keys are compared, comments aren't parsed and nothing is written.
+     *
+     * @param plugin          the main class instance where you extend JavaPlugin.
+     * @param resourceName    the path to your original YAML file inside the JAR.
+     * @param toUpdate        the file you want to check.
+     * @param ignoredSections the list of ignored sections, whose keys aren't compared.
+     * @return true if keys are missing or obsolete; otherwise, false.
+     * @throws IOException if an I/O error occurs when reading the files.
+     */
+    public static boolean needsUpdate(Plugin plugin, String resourceName, File toUpdate, List<String> ignoredSections) throws IOException {
+        byte[] content = UpdateTemplate.readResource(ResourceSource.of(plugin), resourceName);
+        UpdateTemplate template = UpdateTemplate.getCached(UpdateTemplate.hash(content));
+
+        if (template != null)
+            return needsUpdate(template, toUpdate, ignoredSections);
+
+        //Without a compiled template, only the keys of the resource are loaded instead of compiling it with its comments
+        Set<String> defaultKeys = YamlConfiguration.loadConfiguration(new StringReader(new String(content, DEFAULT_CHARSET))).getKeys(true);
+        Map<Object, Object> currentValues = loadValues(toUpdate);
+        return !UpdateCheck.hasSameKeys(defaultKeys, defaultKeys::contains, currentValues, ignoredSections == null ? Collections.emptyList() : ignoredSections);
+    }
+
+    /**
+     * Checks if the YAML file inside the plugin folder is missing keys of the template, or has keys the template doesn't have.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to check.
+     * @param ignoredSections the array of ignored sections, whose keys aren't compared.
+     * @return true if keys are missing or obsolete; otherwise, false.
+     * @throws IOException if an I/O error occurs when reading the file.
+     */
+    public static boolean needsUpdate(UpdateTemplate template, File toUpdate, String... ignoredSections) throws IOException {
+        return needsUpdate(template, toUpdate, Arrays.asList(ignoredSections));
+    }
+
+    /**
+     * Checks if the YAML file inside the plugin folder is missing keys of the template, or has keys the template doesn't have.
+     * Only the keys are compared, so {@link #update(UpdateTemplate, File, List)} may still rewrite a file this returns
+     * false for, for example to add comments back or to write values the way it always writes them. An ignored section
+     * missing from the file counts as a difference, updating such a file fails.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to check.
+     * @param ignoredSections the list of ignored sections, whose keys aren't compared.
+     * @return true if keys are missing or obsolete; otherwise, false.
+     * @throws IOException if an I/O error occurs when reading the file.
+     */
+    public static boolean needsUpdate(UpdateTemplate template, File toUpdate, List<String> ignoredSections) throws IOException {
+        Map<Object, Object> currentValues = loadValues(toUpdate);
+        return !UpdateCheck.hasSameKeys(template, currentValues, ignoredSections == null ? Collections.emptyList() : ignoredSections);
+    }
+
+    private static Map<Object, Object> loadValues(File toUpdate) throws IOException {
+        Preconditions.checkArgument(toUpdate.exists(), "The toUpdate file doesn't exist!");
+
+        String currentContent = new String(Files.readAllBytes(toUpdate.toPath()), DEFAULT_CHARSET);
+        return loadValues(getYamlReader(), currentContent);
+    }
+
+    /**
+     * Patches the YAML file inside the plugin folder in place. Only the keys missing from the file are added, with their
+     * default values and comments, and only the keys missing from the file inside the JAR are removed. Every other line,
+     * including the formatting and comments of the existing keys, is left as it is.
+     *
+     * @param plugin          the main class instance where you extend JavaPlugin.
+     * @param resourceName    the path to your original YAML file inside the JAR.
+     * @param toUpdate        the file you want to patch.
+     * @param ignoredSections the array of ignored section values, where each element represents the full path or the first path of the ignored section
+     *                        and the value is the YAML content to keep unchanged.
+     * @return the report of the keys that were added and removed.
+     * @throws IOException if an I/O error occurs when reading or writing the file.
+     */
+    public static UpdateReport patch(Plugin plugin, String resourceName, File toUpdate, String... ignoredSections) throws IOException {
+        return patch(plugin, resourceName, toUpdate, Arrays.asList(ignoredSections));
+    }
+
+    /**
+     * Patches the YAML file inside the plugin folder in place. Only the keys missing from the file are added, with their
+     * default values and comments, and only the keys missing from the file inside the JAR are removed. Every other line,
+     * including the formatting and comments of the existing keys, is left as it is.
+     *
+     * @param plugin          the main class instance where you extend JavaPlugin.
+     * @param resourceName    the path to your original YAML file inside the JAR.
+     * @param toUpdate        the file you want to patch.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of
+     *                        the ignored section and the value is the YAML content to keep unchanged.
+     * @return the report of the keys that were added and removed.
+     * @throws IOException if an I/O error occurs when reading or writing the file.
+     */
+    public static UpdateReport patch(Plugin plugin, String resourceName, File toUpdate, List<String> ignoredSections) throws IOException {
+        return patch(UpdateTemplate.of(plugin, resourceName), toUpdate, ignoredSections);
+    }
+
+    /**
+     * Patches the YAML file inside the plugin folder in place against the template.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to patch.
+     * @param ignoredSections the array of ignored section values, where each element represents the full path or the first path of the ignored section
+     *                        and the value is the YAML content to keep unchanged.
+     * @return the report of the keys that were added and removed.
+     * @throws IOException if an I/O error occurs when reading or writing the file.
+     */
+    public static UpdateReport patch(UpdateTemplate template, File toUpdate, String... ignoredSections) throws IOException {
+        return patch(template, toUpdate, Arrays.asList(ignoredSections));
+    }
+
+    /**
+     * Patches the YAML file inside the plugin folder in place against the template. The file ends up with the same keys
+     * and values as {@link #update(UpdateTemplate, File, List)} would write, but only the lines of added and removed keys change.
+     * New comments of existing keys aren't added. If the lines of the keys can't be found reliably, the file is updated
+     * the same way {@link #update(UpdateTemplate, File, List)} does.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to patch.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of
+     *                        the ignored section and the value is the YAML content to keep unchanged.
+     * @return the report of the keys that were added and removed.
+     * @throws IOException if an I/O error occurs when reading or writing the file.
+     */
+    public static UpdateReport patch(UpdateTemplate template, File toUpdate, List<String> ignoredSections) throws IOException {
         Preconditions.checkArgument(toUpdate.exists(), "The toUpdate file doesn't exist!");
 
-        FileConfiguration defaultConfig = YamlConfiguration.loadConfiguration(new InputStreamReader(plugin.getResource(resourceName), DEFAULT_CHARSET));
-        FileConfiguration currentConfig = YamlConfiguration.loadConfiguration(Files.newBufferedReader(toUpdate.toPath(), DEFAULT_CHARSET));
-        Map<String, String> comments = parseComments(plugin, resourceName, defaultConfig);
-        Map<String, String> ignoredSectionsValues = parseIgnoredSections(toUpdate, comments, ignoredSections == null ? Collections.emptyList() : ignoredSections);
-        // will write updated config file "contents" to a string
-        StringWriter writer = new StringWriter();
-        write(defaultConfig, currentConfig, new BufferedWriter(writer), comments, ignoredSectionsValues);
-        String value = writer.toString(); // config contents
+        if (ignoredSections == null)
+            ignoredSections = Collections.emptyList();
+
+        try (Closeable ignored = FileLocks.lock(toUpdate, false)) {
+            return patchLocked(template, toUpdate, ignoredSections);
+        }
+    }
 
+    /**
+     * Patches a YAML file while holding its lock.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to patch.
+     * @param ignoredSections the list of ignored sections.
+     * @return the report of the keys that were added and removed.
+     * @throws IOException if an I/O error occurs when reading or writing the file.
+     */
+    private static UpdateReport patchLocked(UpdateTemplate template, File toUpdate, List<String> ignoredSections) throws IOException {
         Path toUpdatePath = toUpdate.toPath();
-        if (!value.equals(new String(Files.readAllBytes(toUpdatePath), DEFAULT_CHARSET))) { // if updated contents are not the same as current file contents, update
-            Files.write(toUpdatePath, value.getBytes(DEFAULT_CHARSET));
+        byte[] currentBytes = Files.readAllBytes(toUpdatePath);
+        String currentContent = new String(currentBytes, DEFAULT_CHARSET);
+        Yaml yaml = getYamlReader();
+        Map<Object, Object> currentValues = loadValues(yaml, currentContent);
+
+        //Without missing or obsolete keys there is nothing to patch
+        if (UpdateCheck.hasSameKeys(template, currentValues, ignoredSections))
+            return new UpdateReport(toUpdate, false, true, Collections.emptyList(), Collections.emptyList());
+
+        FileConfiguration currentConfig = toConfiguration(currentValues);
+        KeyLines currentLines = ignoredSections.isEmpty() ? null : KeyLines.scan(currentContent, SEPARATOR);
+        Map<String, String> ignoredSectionsValues = parseIgnoredSections(currentValues, currentLines, template, ignoredSections, yaml);
+        //The content of a full update decides which keys are added and removed, and is written if patching isn't possible
+        StringWriter mergedWriter = new StringWriter();
+        write(template, currentConfig, mergedWriter, ignoredSectionsValues);
+        String mergedContent = mergedWriter.toString();
+
+        Set<String> currentKeys = currentConfig.getKeys(true);
+        FileConfiguration mergedConfig = toConfiguration(loadValues(yaml, mergedContent));
+        Set<String> mergedKeys = mergedConfig.getKeys(true);
+        List<String> addedKeys = new ArrayList<>();
+        List<String> removedKeys = new ArrayList<>();
+
+        for (String key : mergedKeys) {
+            if (!currentKeys.contains(key))
+                addedKeys.add(key);
+        }
+
+        for (String key : currentKeys) {
+            if (!mergedKeys.contains(key))
+                removedKeys.add(key);
         }
+
+        if (addedKeys.isEmpty() && removedKeys.isEmpty())
+            return new UpdateReport(toUpdate, false, true, addedKeys, removedKeys);
+
+        String patchedContent = ConfigPatcher.patch(currentContent, currentKeys, mergedContent, mergedKeys, addedKeys, removedKeys, SEPARATOR);
+        boolean patched = patchedContent != null && loadsSameValues(yaml, patchedContent, mergedConfig);
+        boolean written = writeIfChanged(toUpdatePath, currentBytes, patched ? patchedContent : mergedContent);
+        return new UpdateReport(toUpdate, written, patched, addedKeys, removedKeys);
     }
 
     /**
-     * Writes the updated configuration data to the specified BufferedWriter, including comments and ignored sections.
+     * Adds a listener receiving the metrics of every update, for example an {@link UpdateStatistics} instance.
      *
-     * @param defaultConfig the configuration from the JAR file, representing the default values.
-     * @param currentConfig the configuration from the file inside the plugin folder, containing the current values.
-     * @param writer the BufferedWriter instance used to write the updated data.
-     * @param comments the map of comments to write, where the key represents the full path to where the comments will be added.
-     * @param ignoredSectionsValues the map of ignored section values, where the key is the full path of the ignored section and the value is the YAML content to keep unchanged.
-     * @throws IOException if an I/O error occurs while writing the data to the BufferedWriter.
+     * @param listener the listener to add.
      */
-    private static void write(FileConfiguration defaultConfig, FileConfiguration currentConfig, BufferedWriter writer, Map<String, String> comments, Map<String, String> ignoredSectionsValues) throws IOException {
-        //Used for converting objects to yaml
-        Yaml yaml = getYamlWriter();
+    public static void addListener(UpdateListener listener) {
+        LISTENERS.add(Objects.requireNonNull(listener, "listener"));
+    }
 
-       for (String fullKey : defaultConfig.getKeys(true)) {
-            String indents = KeyUtils.getIndents(fullKey, SEPARATOR);
+    /**
+     * Removes a listener added with {@link #addListener(UpdateListener)}.
+     *
+     * @param listener the listener to remove.
+     */
+    public static void removeListener(UpdateListener listener) {
+        LISTENERS.remove(listener);
+    }
 
+    /**
+     * Updates many YAML files in parallel on the common fork-join pool. A failing file doesn't stop the others from being updated.
+     *
+     * @param jobs the files to update and what to update them against.
+     * @return the result of each job, in the same order as the jobs.
+     */
+    public static List<UpdateResult> updateAll(Collection<UpdateJob> jobs) {
+        return updateAll(jobs, ForkJoinPool.commonPool());
+    }
 
-           if (!ignoredSectionsValues.isEmpty()) {
-               if (writeIgnoredSectionValueIfExists(ignoredSectionsValues, writer, fullKey))
-                   continue;
-           }
-           writeCommentIfExists(comments, writer, fullKey, indents);
-           Object currentValue = currentConfig.get(fullKey);
+    /**
+     * Updates many YAML files in parallel on the provided executor. A failing file doesn't stop the others from being updated,
+     * its error is collected in its result instead. This method blocks until every job has completed.
+     * <p>
+     * Jobs updating the same file run one after another, jobs updating different files run in parallel.
+     *
+     * @param jobs     the files to update and what to update them against.
+     * @param executor the executor the jobs run on.
+     * @return the result of each job, in the same order as the jobs.
+     */
+    public static List<UpdateResult> updateAll(Collection<UpdateJob> jobs, Executor executor) {
+        List<CompletableFuture<UpdateResult>> futures = new ArrayList<>(jobs.size());
 
-           if (currentValue == null)
-               currentValue = defaultConfig.get(fullKey);
+        for (UpdateJob job : jobs) {
+            futures.add(updateAsync(job, executor));
+        }
 
-           String[] splitFullKey = fullKey.split("[" + SEPARATOR + "]");
-           String trailingKey = splitFullKey[splitFullKey.length - 1];
+        List<UpdateResult> results = new ArrayList<>(futures.size());
 
-           if (currentValue instanceof ConfigurationSection) {
-               writeConfigurationSection(writer, indents, trailingKey, (ConfigurationSection) currentValue);
-               continue;
-           }
-           writeYamlValue(yaml, writer, indents, trailingKey, currentValue);
-       }
+        for (CompletableFuture<UpdateResult> future : futures) {
+            results.add(future.join());
+        }
 
-        String danglingComments = comments.get(null);
+        return results;
+    }
 
-        if (danglingComments != null)
-            writer.write(danglingComments);
+    /**
+     * Updates a YAML file off the calling thread, on virtual threads when running on Java 21 or newer and on a small pool
+     * of daemon threads otherwise.
+     *
+     * @param job the file to update and what to update it against.
+     * @return a future completed with the result of the job. The future doesn't complete exceptionally, errors are collected in the result.
+     */
+    public static CompletableFuture<UpdateResult> updateAsync(UpdateJob job) {
+        return updateAsync(job, UpdateExecutors.getDefault());
+    }
 
-        writer.close();
+    /**
+     * Updates a YAML file off the calling thread, reading, merging and writing it on the provided executor.
+     *
+     * @param job      the file to update and what to update it against.
+     * @param executor the executor the update runs on.
+     * @return a future completed with the result of the job. The future doesn't complete exceptionally, errors are collected in the result.
+     */
+    public static CompletableFuture<UpdateResult> updateAsync(UpdateJob job, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> run(job), executor);
     }
 
     /**
-     * Parses comments from the YAML resource file inside the JAR and returns a map of key-comment pairs.
+     * Updates a YAML file off the calling thread and completes the returned future on the completion executor.
+     * For example, {@code task -> Bukkit.getScheduler().runTask(plugin, task)} as completion executor lets the
+     * result be handled on the main thread, where the config can be reloaded safely.
      *
-     * @param plugin        the main class instance where you extend JavaPlugin.
-     * @param resourceName  the path to your original YAML file inside the JAR.
-     * @param defaultConfig the FileConfiguration representing the YAML file inside the JAR.
-     * @return a map containing key-comment pairs. If a key doesn't have any comments, it won't be included in the map.
-     * @throws IOException if an I/O error occurs while writing the comments.
+     * @param job                the file to update and what to update it against.
+     * @param executor           the executor the update runs on.
+     * @param completionExecutor the executor the returned future is completed on.
+     * @return a future completed with the result of the job. The future doesn't complete exceptionally, errors are collected in the result.
      */
-    private static Map<String, String> parseComments(Plugin plugin, String resourceName, FileConfiguration defaultConfig) throws IOException {
-        //keys are in order
-        List<String> keys = new ArrayList<>(defaultConfig.getKeys(true));
-        BufferedReader reader = new BufferedReader(new InputStreamReader(plugin.getResource(resourceName), DEFAULT_CHARSET));
-        Map<String, String> comments = new LinkedHashMap<>();
-        StringBuilder commentBuilder = new StringBuilder();
-        KeyBuilder keyBuilder = new KeyBuilder(defaultConfig, SEPARATOR);
-        String currentValidKey = null;
-
-        String line;
-        while ((line = reader.readLine()) != null) {
-            String trimmedLine = line.trim();
-            //Only getting comments for keys. A list/array element comment(s) not supported
-            if (trimmedLine.startsWith("-")) continue;
-
-            if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {//Is blank line or is comment
-                commentBuilder.append(trimmedLine).append("\n");
-            } else {//is a valid yaml key
-                //This part verifies if it is the first non-nested key in the YAML file and then stores the result as the next non-nested value.
-                if (!line.startsWith(" ")) {
-                    keyBuilder.clear();//add clear method instead of create new instance.
-                    currentValidKey = trimmedLine;
-                }
+    public static CompletableFuture<UpdateResult> updateAsync(UpdateJob job, Executor executor, Executor completionExecutor) {
+        return updateAsync(job, executor).thenApplyAsync(result -> result, completionExecutor);
+    }
 
-                keyBuilder.parseLine(trimmedLine, true);
-                String key = keyBuilder.toString();
+    /**
+     * Runs a job, collecting its error instead of throwing it.
+     *
+     * @param job the job to run.
+     * @return the result of the job.
+     */
+    static UpdateResult run(UpdateJob job) {
+        return run(job, false);
+    }
 
-                //If there is a comment associated with the key it is added to comments map and the commentBuilder is reset
-                if (commentBuilder.length() > 0) {
-                    comments.put(key, commentBuilder.toString());
-                    commentBuilder.setLength(0);
-                }
+    /**
+     * Runs a job, collecting its error instead of throwing it.
+     *
+     * @param job        the job to run.
+     * @param hashOutput true to hash the content the file is written with, see {@link UpdateResult#getContentHash()}.
+     * @return the result of the job.
+     */
+    static UpdateResult run(UpdateJob job, boolean hashOutput) {
+        try {
+            UpdateMetrics metrics = updateIfChanged(job, hashOutput);
+            return UpdateResult.success(job.getFile(), metrics.written, metrics.contentHash);
+        } catch (IOException | RuntimeException e) {
+            return UpdateResult.failure(job.getFile(), e);
+        }
+    }
+
+    /**
+     * Update the YAML file of a job, only if it does not match the default YAML file.
+     *
+     * @param job        the file to update, what to update it against and how.
+     * @param hashOutput true to hash the content the file is written with.
+     * @return the metrics of the update.
+     * @throws IOException if an I/O error occurs when reading or writing the file.
+     */
+    private static UpdateMetrics updateIfChanged(UpdateJob job, boolean hashOutput) throws IOException {
+        //Updates of the same file wait for each other, so none of them reads the file while another one replaces it
+        try (Closeable ignored = FileLocks.lock(job.getFile(), job.getOptions().isFileLock())) {
+            return updateLocked(job, hashOutput);
+        }
+    }
+
+    /**
+     * Updates the YAML file of a job while holding its lock.
+     *
+     * @param job        the file to update, what to update it against and how.
+     * @param hashOutput true to hash the content the file is written with.
+     * @return the metrics of the update.
+     * @throws IOException if an I/O error occurs when reading or writing the file.
+     */
+    private static UpdateMetrics updateLocked(UpdateJob job, boolean hashOutput) throws IOException {
+        File toUpdate = job.getFile();
+        List<String> ignoredSections = job.getIgnoredSections();
+        UpdateOptions options = job.getOptions();
+        Preconditions.checkArgument(toUpdate.exists(), "The toUpdate file doesn't exist!");
+        UpdateMetrics metrics = new UpdateMetrics(toUpdate);
+        metrics.ignoredSectionCount = ignoredSections.size();
+
+        //The file is read once, its content backs the fingerprint, the current config, the ignored sections and the comparison.
+        //When streaming, the file is read as a stream for each of them instead. Ignored sections are copied from the lines
+        //of the file, so files with ignored sections are always read at once, otherwise the output would differ.
+        long phaseStart = System.nanoTime();
+        Path toUpdatePath = toUpdate.toPath();
+        byte[] currentBytes = options.isStreaming() && ignoredSections.isEmpty() ? null : Files.readAllBytes(toUpdatePath);
+        metrics.currentLoadNanos = System.nanoTime() - phaseStart;
+        metrics.bytesRead = currentBytes == null ? Files.size(toUpdatePath) : currentBytes.length;
+
+        phaseStart = System.nanoTime();
+        UpdateTemplate template = job.getTemplate();
+        byte[] resource = template == null ? job.readResource() : null;
+        String resourceHash = template == null ? UpdateTemplate.hash(resource) : template.getContentHash();
+        metrics.resourceLoadNanos = System.nanoTime() - phaseStart;
+
+        if (resource != null)
+            metrics.bytesRead += resource.length;
+
+        Fingerprint fingerprint = null;
+
+        if (options.isFingerprint()) {
+            String currentHash = currentBytes == null ? UpdateTemplate.hash(toUpdatePath) : UpdateTemplate.hash(currentBytes);
+            fingerprint = new Fingerprint(resourceHash, currentHash, ignoredSections);
+
+            //Nothing changed since the last update, which already wrote this file
+            if (fingerprint.equals(Fingerprint.read(toUpdatePath))) {
+                metrics.fingerprintMatched = true;
+                report(options, metrics);
+                return metrics;
+            }
+        }
+
+        phaseStart = System.nanoTime();
+
+        if (template == null)
+            template = job.getTemplate(resourceHash, resource);
+
+        metrics.templateNanos = System.nanoTime() - phaseStart;
+        metrics.keyCount = template.size();
+
+        phaseStart = System.nanoTime();
+        Yaml yaml = getYamlReader();
+        Function<String, Object> currentValues = null;
+        Map<Object, Object> ignoredValues = null;
+        //The lines of the current content the ignored sections are copied from
+        KeyLines currentLines = null;
+
+        if (currentBytes == null) {
+            StreamingMerge merge;
+
+            try (Reader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(toUpdatePath), DEFAULT_CHARSET))) {
+                merge = StreamingMerge.read(reader, template, yaml);
+            }
+
+            if (merge == null) {
+                //The file uses YAML the stream can't follow
+                currentBytes = Files.readAllBytes(toUpdatePath);
+            } else {
+                currentValues = merge::get;
+                ignoredValues = Collections.emptyMap();
+            }
+        }
+
+        //The decoded content of the file, unknown when streaming
+        String currentText = null;
+
+        if (currentValues == null) {
+            currentText = new String(currentBytes, DEFAULT_CHARSET);
+            Map<Object, Object> values = loadValues(yaml, currentText);
+            currentValues = toConfiguration(values)::get;
+            ignoredValues = values;
+
+            if (!ignoredSections.isEmpty())
+                currentLines = KeyLines.scan(currentText, SEPARATOR);
+        }
+
+        metrics.currentLoadNanos += System.nanoTime() - phaseStart;
+
+        phaseStart = System.nanoTime();
+        Map<String, String> ignoredSectionsValues = parseIgnoredSections(ignoredValues, currentLines, template, ignoredSections, yaml);
+        metrics.ignoredSectionsNanos = System.nanoTime() - phaseStart;
+
+        //Most files already have the keys and layout of the default file, which is found out without writing anything
+        if (currentText != null && UpdateCheck.hasSameKeys(template, ignoredValues, ignoredSections)) {
+            phaseStart = System.nanoTime();
+            boolean updated = UpdateCheck.isUpdated(template, currentValues, currentText, ignoredSectionsValues);
+            metrics.writeNanos = System.nanoTime() - phaseStart;
+
+            if (updated) {
+                if (fingerprint != null)
+                    fingerprint.write(toUpdatePath);
+
+                metrics.layoutMatched = true;
+                report(options, metrics);
+                return metrics;
+            }
+        }
+
+        //The output is compared with the current content while it's written, and only written to disk from the first difference on
+        phaseStart = System.nanoTime();
+        CompareAndWriteOutputStream out = new CompareAndWriteOutputStream(toUpdatePath, currentBytes, fingerprint != null || hashOutput);
+        boolean changed;
+
+        try {
+            write(template, currentValues, new OutputStreamWriter(out, DEFAULT_CHARSET), ignoredSectionsValues);
+            metrics.writeNanos += System.nanoTime() - phaseStart;
+
+            phaseStart = System.nanoTime();
+            changed = out.commit();
+        } finally {
+            out.discard();
+        }
+
+        String outputHash = fingerprint != null || hashOutput ? out.getHash() : null;
+
+        if (fingerprint != null)
+            new Fingerprint(resourceHash, outputHash, ignoredSections).write(toUpdatePath);
+
+        metrics.diskWriteNanos = System.nanoTime() - phaseStart;
+        metrics.written = changed;
+        metrics.bytesWritten = changed ? out.getSize() : 0;
+        metrics.contentHash = changed ? outputHash : null;
+        report(options, metrics);
+        return metrics;
+    }
+
+    /**
+     * Passes the metrics of an update to the listener of its options and the global listeners. A listener throwing an
+     * exception is logged, it doesn't fail the update, which already completed, or keep the other listeners from being called.
+     *
+     * @param options the options of the update.
+     * @param metrics the metrics of the update.
+     */
+    private static void report(UpdateOptions options, UpdateMetrics metrics) {
+        UpdateListener listener = options.getListener();
+
+        if (listener != null)
+            report(listener, metrics);
+
+        for (UpdateListener globalListener : LISTENERS) {
+            report(globalListener, metrics);
+        }
+    }
+
+    private static void report(UpdateListener listener, UpdateMetrics metrics) {
+        try {
+            listener.onUpdate(metrics);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "The update listener " + listener + " failed to handle the update of " + metrics.getFile(), e);
+        }
+    }
+
+    /**
+     * Checks if YAML content is valid and loads to exactly the keys and values of a configuration.
+     *
+     * @param yaml     the Yaml instance used to load the content.
+     * @param content  the YAML content to check.
+     * @param expected the configuration the content should load to.
+     * @return true if the content contains the keys of the configuration, no others, and the same value for each key.
+     */
+    private static boolean loadsSameValues(Yaml yaml, String content, FileConfiguration expected) {
+        FileConfiguration loaded;
+
+        try {
+            loaded = toConfiguration(loadValues(yaml, content));
+        } catch (YAMLException | IllegalArgumentException e) {
+            return false;
+        }
+
+        Set<String> keys = loaded.getKeys(true);
+
+        if (!keys.equals(expected.getKeys(true)))
+            return false;
+
+        for (String key : keys) {
+            Object value = loaded.get(key);
+            Object expectedValue = expected.get(key);
+
+            //The keys of sections are compared on their own
+            if (value instanceof ConfigurationSection ? !(expectedValue instanceof ConfigurationSection) : !Objects.equals(value, expectedValue))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes content to a file, only if it differs from the current content of the file.
+     *
+     * @param path         the file to write to.
+     * @param currentBytes the current content of the file.
+     * @param content      the content to write.
+     * @return true if the file was written; false if it already contained the content.
+     * @throws IOException if an I/O error occurs when writing the file.
+     */
+    private static boolean writeIfChanged(Path path, byte[] currentBytes, String content) throws IOException {
+        CompareAndWriteOutputStream out = new CompareAndWriteOutputStream(path, currentBytes, false);
+
+        try {
+            try (Writer writer = new OutputStreamWriter(out, DEFAULT_CHARSET)) {
+                writer.write(content);
+            }
+
+            return out.commit();
+        } finally {
+            out.discard();
+        }
+    }
+
+    /**
+     * Loads the YAML content of the file to update into a map, the same way the values of a {@link YamlConfiguration} are loaded.
+     *
+     * @param yaml    the Yaml instance used to load the content.
+     * @param content the YAML content to load.
+     * @return the loaded values, which are empty if the content is empty.
+     * @throws IllegalArgumentException if the top level of the content is not a map.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<Object, Object> loadValues(Yaml yaml, String content) {
+        Object values = yaml.load(content);
+
+        if (values == null)
+            return Collections.emptyMap();
+
+        Preconditions.checkArgument(values instanceof Map, "The toUpdate file's top level is not a map!");
+        return (Map<Object, Object>) values;
+    }
 
-                int nextKeyIndex = keys.indexOf(keyBuilder.toString()) + 1;
-                if (nextKeyIndex < keys.size()) {
-
-                    String nextKey = keys.get(nextKeyIndex);
-                    while (!keyBuilder.isEmpty() && !nextKey.startsWith(keyBuilder.toString())) {
-                        keyBuilder.removeLastKey();
-                    }
-                    //If all keys are cleared in a loop, then the first key from the nested keys in the YAML file is assigned to this keyBuilder instance.
-                    //If the file contains multiple non-nested keys, the next first non-nested key will be used.
-                    if (keyBuilder.isEmpty()) {
-                        keyBuilder.parseLine(currentValidKey, false);
-                    }
+    /**
+     * Creates a {@link FileConfiguration} from loaded YAML values, converting maps to configuration sections
+     * like {@link YamlConfiguration#loadFromString(String)} does.
+     *
+     * @param values the loaded YAML values.
+     * @return the configuration containing the values.
+     */
+    private static FileConfiguration toConfiguration(Map<Object, Object> values) {
+        FileConfiguration config = new YamlConfiguration();
+
+        for (Map.Entry<Object, Object> entry : values.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+
+            if (value instanceof Map) {
+                config.createSection(key, (Map<?, ?>) value);
+            } else {
+                config.set(key, value);
+            }
+        }
+
+        return config;
+    }
+
+    /**
+     * Writes the updated configuration data to the specified Writer, including comments and ignored sections.
+     *
+     * @param template the compiled YAML file from the JAR file, representing the keys, comments and default values.
+     * @param currentConfig the configuration from the file inside the plugin folder, containing the current values.
+     * @param writer the Writer instance used to write the updated data, which doesn't need to be buffered.
+     * @param ignoredSectionsValues the map of ignored section values, where the key is the full path of the ignored section and the value is the YAML content to keep unchanged.
+     * @throws IOException if an I/O error occurs while writing the data to the Writer.
+     */
+    static void write(UpdateTemplate template, FileConfiguration currentConfig, Writer writer, Map<String, String> ignoredSectionsValues) throws IOException {
+        write(template, currentConfig::get, writer, ignoredSectionsValues);
+    }
+
+    /**
+     * Writes the updated configuration data to the specified Writer, including comments and ignored sections.
+     *
+     * @param template the compiled YAML file from the JAR file, representing the keys, comments and default values.
+     * @param currentValues the current value of each full key, where sections are either configuration sections or maps.
+     * @param writer the Writer instance used to write the updated data, which doesn't need to be buffered.
+     * @param ignoredSectionsValues the map of ignored section values, where the key is the full path of the ignored section and the value is the YAML content to keep unchanged.
+     * @throws IOException if an I/O error occurs while writing the data to the Writer.
+     */
+    static void write(UpdateTemplate template, Function<String, Object> currentValues, Writer writer, Map<String, String> ignoredSectionsValues) throws IOException {
+        //Used for converting objects to yaml that can't be written directly
+        Yaml yaml = YAML_WRITER.get();
+        List<String> keys = template.getKeys();
+        IgnoredPaths ignoredPaths = new IgnoredPaths(ignoredSectionsValues.keySet(), SEPARATOR);
+        //Every line is written through this writer's buffer, indented at the depth of its key
+        IndentingWriter out = new IndentingWriter(writer);
+
+        for (int i = 0; i < keys.size(); i++) {
+            String fullKey = keys.get(i);
+
+            if (!ignoredSectionsValues.isEmpty()) {
+                if (writeIgnoredSectionValueIfExists(ignoredSectionsValues, ignoredPaths, out, fullKey))
+                    continue;
+            }
+            out.setDepth(template.getLevel(i));
+            template.writeComment(i, out);
+            Object currentValue = currentValues.apply(fullKey);
+            String trailingKey = template.getTrailingKey(i);
+
+            if (currentValue == null) {
+                if (template.isSection(i)) {
+                    writeConfigurationSection(out, trailingKey, template.isEmptySection(i));
+                    continue;
                 }
+
+                currentValue = template.getDefaultValue(i);
             }
+
+            //A section without keys still gets the keys of the default file written into it, so it isn't written as empty
+            if (currentValue instanceof ConfigurationSection) {
+                writeConfigurationSection(out, trailingKey, template.isEmptySection(i) && ((ConfigurationSection) currentValue).getKeys(false).isEmpty());
+                continue;
+            }
+
+            if (currentValue instanceof Map) {
+                writeConfigurationSection(out, trailingKey, template.isEmptySection(i) && ((Map<?, ?>) currentValue).isEmpty());
+                continue;
+            }
+            writeYamlValue(yaml, out, trailingKey, currentValue);
+        }
+
+        template.writeDanglingComments(out);
+        out.close();
+    }
+
+    /**
+     * Parses comments from the YAML resource file inside the JAR and returns a map of key-comment pairs.
+     *
+     * @param defaultContent the content of the YAML file inside the JAR.
+     * @param defaultConfig  the FileConfiguration representing the YAML file inside the JAR.
+     * @return a map containing key-comment pairs. If a key doesn't have any comments, it won't be included in the map.
+     * @throws IOException if an I/O error occurs while reading the content.
+     */
+    static Map<String, String> parseComments(String defaultContent, FileConfiguration defaultConfig) throws IOException {
+        //keys are in order, the ordinal of a key is its position in the file
+        return parseComments(defaultContent, getKeyOrdinals(defaultConfig.getKeys(true)));
+    }
+
+    /**
+     * Parses comments from the YAML resource file inside the JAR and returns a map of key-comment pairs.
+     *
+     * @param defaultContent the content of the YAML file inside the JAR.
+     * @param keyOrdinals    the keys of the YAML file inside the JAR, mapped to their position in the file.
+     * @return a map containing key-comment pairs. If a key doesn't have any comments, it won't be included in the map.
+     * @throws IOException if an I/O error occurs while reading the content.
+     */
+    static Map<String, String> parseComments(String defaultContent, Map<String, Integer> keyOrdinals) throws IOException {
+        CommentSpans spans = CommentSpans.parse(defaultContent, keyOrdinals);
+        Map<String, String> comments = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Integer> entry : keyOrdinals.entrySet()) {
+            String comment = spans.get(entry.getValue());
+
+            if (comment != null)
+                comments.put(entry.getKey(), comment);
         }
-        reader.close();
 
-        if (commentBuilder.length() > 0)
-            comments.put(null, commentBuilder.toString());
+        String danglingComments = spans.getDangling();
+
+        if (danglingComments != null)
+            comments.put(null, danglingComments);
 
         return comments;
     }
 
+    /**
+     * Maps each key to its position in the provided keys, so the position can be looked up in constant time.
+     *
+     * @param keys the keys in order.
+     * @return a map of each key to its position.
+     */
+    static Map<String, Integer> getKeyOrdinals(Collection<String> keys) {
+        Map<String, Integer> keyOrdinals = new HashMap<>((int) (keys.size() / 0.75f) + 1);
+        int ordinal = 0;
+
+        for (String key : keys) {
+            keyOrdinals.put(key, ordinal++);
+        }
+
+        return keyOrdinals;
+    }
+
     /**
      * Parses through the ignored sections of the YAML file and returns a map containing the sections,
      * along with their values, comments, and path names.
      *
-     * @param toUpdate the file you want to update with the ignored sections.
-     * @param comments the map of comments you want to add to the YAML file. The key of each entry in the map is
-     *                 the full path to the section where you want to add the comment, and the value is the comment itself.
+     * @param root the values loaded from the file you want to update with the ignored sections.
+     * @param template the template whose comments are added to the ignored sections.
      * @param ignoredSections the list of sections that will not be changed during the update. Where the elements are the full
      *                        path or the first section that will be ignored.
+     * @param yaml the Yaml instance used to serialize the ignored values.
      * @return a map containing the YAML sections to be written to the file, along with their values, comments, and path names.
-     * @throws IOException if the file does not exist, is a directory rather than a regular file, or for some other reason cannot be opened for reading.
      */
-    private static Map<String, String> parseIgnoredSections(File toUpdate, Map<String, String> comments, List<String> ignoredSections) throws IOException {
-        Map<String, String> ignoredSectionValues = new LinkedHashMap<>(ignoredSections.size());
+    static Map<String, String> parseIgnoredSections(Map<Object, Object> root, UpdateTemplate template, List<String> ignoredSections, Yaml yaml) {
+        return parseIgnoredSections(root, null, template, ignoredSections, yaml);
+    }
 
-        DumperOptions options = new DumperOptions();
-        options.setLineBreak(DumperOptions.LineBreak.UNIX);
-        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-        Yaml yaml = new Yaml(new YamlConstructor(), new YamlRepresenter(), options);
+    /**
+     * Parses through the ignored sections of the YAML file and returns a map containing the sections,
+     * along with their values, comments, and path names.
+     * <p>
+     * The lines of an ignored section are copied from the file as they are, only moved to the indentation of the
+     * section. A section is serialized from its values instead if its lines can't be found reliably, for example
+     * because it's written in flow style or uses aliases.
+     *
+     * @param root the values loaded from the file you want to update with the ignored sections.
+     * @param currentLines the lines of the file the values were loaded from, or null if they aren't known.
+     * @param template the template whose comments are added to the ignored sections.
+     * @param ignoredSections the list of sections that will not be changed during the update. Where the elements are the full
+     *                        path or the first section that will be ignored.
+     * @param yaml the Yaml instance used to serialize the ignored values.
+     * @return a map containing the YAML sections to be written to the file, along with their values, comments, and path names.
+     */
+    static Map<String, String> parseIgnoredSections(Map<Object, Object> root, KeyLines currentLines, UpdateTemplate template, List<String> ignoredSections, Yaml yaml) {
+        Map<String, String> ignoredSectionValues = new LinkedHashMap<>(ignoredSections.size());
+        //Sections are compared by identity, their keys are indexed the first time they are looked up
+        Map<Map<Object, Object>, SectionKeys> sectionKeys = new IdentityHashMap<>();
 
-        Map<Object, Object> root = (Map<Object, Object>) yaml.load(new InputStreamReader(new FileInputStream(toUpdate), DEFAULT_CHARSET));
         ignoredSections.forEach(section -> {
-            String[] split = section.split("[" + SEPARATOR + "]");
-            String key = split[split.length - 1];
-            Map<Object, Object> map = getSection(section, root);
+            KeyPath path = KeyPath.of(section, SEPARATOR);
+            Map<Object, Object> map = getSection(path, root, sectionKeys);
+            String copied = currentLines == null ? null : copyIgnored(path, map, template, currentLines, sectionKeys);
 
-            StringBuilder keyBuilder = new StringBuilder();
-            for (int i = 0; i < split.length; i++) {
-                if (i != split.length - 1) {
-                    if (keyBuilder.length() > 0)
-                        keyBuilder.append(SEPARATOR);
-
-                    keyBuilder.append(split[i]);
-                }
-            }
-
-            ignoredSectionValues.put(section, buildIgnored(key, map, comments, keyBuilder, new StringBuilder(), yaml));
+            ignoredSectionValues.put(section, copied != null ? copied : buildIgnored(path, map, template, yaml, sectionKeys));
         });
         return ignoredSectionValues;
     }
 
     /**
-     * Recursively retrieves a specific section from the YAML file based on the provided full path.
+     * Copies the lines of an ignored section from the file, if the lines of its keys are exactly the keys it loaded to.
      *
-     * @param fullKey the full path to the desired section in the YAML file.
+     * @param path the full path to the ignored section.
+     * @param ymlMap the section containing the ignored section.
+     * @param template the template whose comment of the ignored section is added back to the file.
+     * @param currentLines the lines of the file.
+     * @param sectionKeys the indexed keys of the sections looked up so far.
+     * @return the copied lines, or null if they can't be copied reliably.
+     */
+    private static String copyIgnored(KeyPath path, Map<Object, Object> ymlMap, UpdateTemplate template, KeyLines currentLines, Map<Map<Object, Object>, SectionKeys> sectionKeys) {
+        String section = path.toString();
+
+        if (currentLines.hasDuplicateKeys() || !currentLines.contains(section))
+            return null;
+
+        Set<String> loadedKeys = new HashSet<>();
+        addKeys(section, (Map<?, ?>) ymlMap.get(getKeyAsObject(path.getLastSegment(), ymlMap, sectionKeys)), loadedKeys);
+        int foundKeys = 0;
+
+        for (String key : currentLines.getKeys()) {
+            if (!KeyUtils.isSubKeyOf(section, key, SEPARATOR))
+                continue;
+
+            if (!loadedKeys.contains(key))
+                return null;
+
+            foundKeys++;
+        }
+
+        if (foundKeys != loadedKeys.size())
+            return null;
+
+        int depth = path.getDepth() - 1;
+        String lines = currentLines.copy(section, depth * 2);
+
+        //The anchor of an alias may be outside of the section, where it isn't written again
+        if (containsAlias(lines))
+            return null;
+
+        String comment = template.getComment(section);
+        return comment == null ? lines : IndentingWriter.indent(comment, depth) + lines;
+    }
+
+    private static void addKeys(String parent, Map<?, ?> section, Set<String> keys) {
+        for (Map.Entry<?, ?> entry : section.entrySet()) {
+            String key = parent + SEPARATOR + entry.getKey();
+            keys.add(key);
+
+            if (entry.getValue() instanceof Map)
+                addKeys(key, (Map<?, ?>) entry.getValue(), keys);
+        }
+    }
+
+    /**
+     * Checks if YAML content may contain an alias. Quoted text like '*bold*' is reported too, which is only slower.
+     *
+     * @param content the YAML content.
+     * @return true if a '*' follows the start of a value.
+     */
+    static boolean containsAlias(String content) {
+        for (int i = content.indexOf('*'); i != -1; i = content.indexOf('*', i + 1)) {
+            char previous = i == 0 ? ' ' : content.charAt(i - 1);
+
+            if (previous == ' ' || previous == '\n' || previous == '-' || previous == '[' || previous == '{' || previous == ',' || previous == ':')
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Retrieves a specific section from the YAML file based on the provided full path.
+     *
+     * @param path the full path to the desired section in the YAML file.
      * @param root the root section of the YAML file.
-     * @return the map representing the desired section from the YAML file.
+     * @param sectionKeys the indexed keys of the sections looked up so far.
+     * @return the map containing the desired section from the YAML file.
+     * @throws IllegalArgumentException if the specified section is not a ConfigurationSection or is invalid.
+     */
+    private static Map<Object, Object> getSection(KeyPath path, Map<Object, Object> root, Map<Map<Object, Object>, SectionKeys> sectionKeys) {
+        return getSection(path, 0, root, sectionKeys);
+    }
+
+    /**
+     * Recursively retrieves a specific section from the YAML file based on the provided full path.
+     *
+     * @param path the full path to the desired section in the YAML file.
+     * @param index the position of the next key of the path to look up.
+     * @param root the section containing the next key of the path.
+     * @param sectionKeys the indexed keys of the sections looked up so far.
+     * @return the map containing the desired section from the YAML file.
      * @throws IllegalArgumentException if the specified section is not a ConfigurationSection or is invalid.
      */
-    private static Map<Object, Object> getSection(String fullKey, Map<Object, Object> root) {
-        String[] keys = fullKey.split("[" + SEPARATOR + "]", 2);
-        String key = keys[0];
-        Object value = root.get(getKeyAsObject(key, root));
+    private static Map<Object, Object> getSection(KeyPath path, int index, Map<Object, Object> root, Map<Map<Object, Object>, SectionKeys> sectionKeys) {
+        String key = path.getSegment(index);
+        Object value = root.get(getKeyAsObject(key, root, sectionKeys));
 
-        if (keys.length == 1) {
+        if (index == path.getDepth() - 1) {
             if (value instanceof Map)
                 return root;
 	   /*     if (value == null) {
@@ -248,68 +1011,84 @@ public class ConfigUpdater {
         if (!(value instanceof Map))
             throw new IllegalArgumentException("Invalid ignored ConfigurationSection specified!");
 
-        return getSection(keys[1], (Map<Object, Object>) value);
+        return getSection(path, index + 1, (Map<Object, Object>) value, sectionKeys);
     }
 
     /**
-     * Recursively builds the ignored path and values back to the file.
+     * Builds an ignored section from its values.
      *
-     * @param fullKey the full path to the current section in the YAML file.
-     * @param ymlMap the map of sections to write.
-     * @param comments the commits to add back to the file.
-     * @param keyBuilder the StringBuilder containing the current path being read from the file.
-     * @param ignoredBuilder the StringBuilder instance to write the data to.
+     * @param path the full path to the ignored section.
+     * @param ymlMap the section containing the ignored section.
+     * @param template the template whose comments are added back to the file.
      * @param yaml the Yaml instance used to serialize the Java object into a YAML String.
+     * @param sectionKeys the indexed keys of the sections looked up so far.
      * @return the built ignored path and values as a String.
      * @throws IllegalArgumentException if an invalid ignored section is encountered during the process.
      */
-    private static String buildIgnored(String fullKey, Map<Object, Object> ymlMap, Map<String, String> comments, StringBuilder keyBuilder, StringBuilder ignoredBuilder, Yaml yaml) {
-        //0 will be the next key, 1 will be the remaining keys
-        String[] keys = fullKey.split("[" + SEPARATOR + "]", 2);
-        String key = keys[0];
-        Object originalKey = getKeyAsObject(key, ymlMap);
+    private static String buildIgnored(KeyPath path, Map<Object, Object> ymlMap, UpdateTemplate template, Yaml yaml, Map<Map<Object, Object>, SectionKeys> sectionKeys) {
+        StringWriter ignored = new StringWriter();
+
+        try (IndentingWriter writer = new IndentingWriter(ignored)) {
+            buildIgnored(path.getLastSegment(), ymlMap, template, path.getParent(), writer, yaml, sectionKeys);
+        } catch (IOException e) {
+            //StringWriter doesn't throw
+            throw new AssertionError(e);
+        }
 
-        if (keyBuilder.length() > 0)
-            keyBuilder.append(".");
+        return ignored.toString();
+    }
 
-        keyBuilder.append(key);
+    /**
+     * Recursively builds the ignored path and values back to the file.
+     *
+     * @param fullKey the full path to the current section in the YAML file.
+     * @param ymlMap the map of sections to write.
+     * @param template the template whose comments are added back to the file.
+     * @param parent the path of the section containing the current section, or null if it's at the root.
+     * @param writer the IndentingWriter instance to write the data to.
+     * @param yaml the Yaml instance used to serialize the Java object into a YAML String.
+     * @param sectionKeys the indexed keys of the sections looked up so far.
+     * @throws IOException if an I/O error occurs while writing the data.
+     * @throws IllegalArgumentException if an invalid ignored section is encountered during the process.
+     */
+    private static void buildIgnored(String fullKey, Map<Object, Object> ymlMap, UpdateTemplate template, KeyPath parent, IndentingWriter writer, Yaml yaml, Map<Map<Object, Object>, SectionKeys> sectionKeys) throws IOException {
+        //Anything after the separator are the remaining keys
+        int separatorIndex = fullKey.indexOf(SEPARATOR);
+        String key = separatorIndex == -1 ? fullKey : fullKey.substring(0, separatorIndex);
+        Object originalKey = getKeyAsObject(key, ymlMap, sectionKeys);
+        KeyPath path = KeyPath.of(parent, key, SEPARATOR);
 
         if (!ymlMap.containsKey(originalKey)) {
-            if (keys.length == 1)
-                throw new IllegalArgumentException("Invalid ignored section: " + keyBuilder);
+            if (separatorIndex == -1)
+                throw new IllegalArgumentException("Invalid ignored section: " + path);
 
-            throw new IllegalArgumentException("Invalid ignored section: " + keyBuilder + "." + keys[1]);
+            throw new IllegalArgumentException("Invalid ignored section: " + path + "." + fullKey.substring(separatorIndex + 1));
         }
 
-        String comment = comments.get(keyBuilder.toString());
-        String indents = KeyUtils.getIndents(keyBuilder.toString(), SEPARATOR);
+        String comment = template.getComment(path.toString());
+        writer.setDepth(path.getDepth() - 1);
 
         if (comment != null)
-            ignoredBuilder.append(addIndentation(comment, indents)).append("\n");
+            writer.writeBlock(comment);
 
-        ignoredBuilder.append(addIndentation(key, indents)).append(":");
+        writer.writeKey(key);
         Object obj = ymlMap.get(originalKey);
 
         if (obj instanceof Map) {
             Map<Object, Object> map = (Map<Object, Object>) obj;
 
             if (map.isEmpty()) {
-                ignoredBuilder.append(" {}\n");
+                writer.write(" {}\n");
             } else {
-                ignoredBuilder.append("\n");
+                writer.write('\n');
             }
 
-            StringBuilder preLoopKey = new StringBuilder(keyBuilder);
-
             for (Object o : map.keySet()) {
-                buildIgnored(o.toString(), map, comments, keyBuilder, ignoredBuilder, yaml);
-                keyBuilder = new StringBuilder(preLoopKey);
+                buildIgnored(o.toString(), map, template, path, writer, yaml, sectionKeys);
             }
         } else {
-            writeIgnoredValue(yaml, obj, ignoredBuilder, indents);
+            writeIgnoredValue(yaml, obj, writer);
         }
-
-        return ignoredBuilder.toString();
     }
 
     /**
@@ -317,55 +1096,18 @@ public class ConfigUpdater {
      *
      * @param yaml the Yaml instance used to serialize the Java object into a YAML String.
      * @param toWrite the object you want to write to the file as an ignored section.
-     * @param ignoredBuilder the StringBuilder instance to write the data to.
-     * @param indents the number of spaces used for indentation in the YAML representation.
+     * @param writer the IndentingWriter instance to write the data to, at the depth of the key of the value.
+     * @throws IOException if an I/O error occurs while writing the data.
      */
-    private static void writeIgnoredValue(Yaml yaml, Object toWrite, StringBuilder ignoredBuilder, String indents) {
+    private static void writeIgnoredValue(Yaml yaml, Object toWrite, IndentingWriter writer) throws IOException {
         String yml = yaml.dump(toWrite);
         if (toWrite instanceof Collection) {
-            ignoredBuilder.append("\n").append(addIndentation(yml, indents)).append("\n");
+            writer.write('\n');
+            writer.writeBlock(yml);
         } else {
-            ignoredBuilder.append(" ").append(yml);
-        }
-    }
-
-    /**
-     * Adds the specified number of indents to each line of the given string.
-     *
-     * @param s the string to which indents are added.
-     * @param indents the indents to add to each line.
-     * @return the provided string with the correct number of indentations applied.
-     */
-    private static String addIndentation(String s, String indents) {
-        StringBuilder builder = new StringBuilder();
-        String[] split = s.split("\n");
-
-        for (String value : split) {
-            if (builder.length() > 0)
-                builder.append("\n");
-
-            builder.append(indents).append(value);
+            writer.write(' ');
+            writer.write(yml);
         }
-
-        return builder.toString();
-    }
-
-    /**
-     * Writes the specified commit to the provided buffer writer. If the commit exist for this path.
-     *
-     * @param comments the map containing key-value pairs of commits where the key represents the path from the YAML file.
-     * @param writer the BufferedWriter instance used to write the commit value.
-     * @param fullKey the key representing the path from the YAML file.
-     * @param indents the number of spaces used for indentation.
-     * @throws IOException If an I/O error occurs while writing the YAML commits.
-     */
-    private static void writeCommentIfExists(Map<String, String> comments, BufferedWriter writer, String fullKey, String indents) throws IOException {
-        String comment = comments.get(fullKey);
-
-        //Comments always end with new line (\n)
-        if (comment != null)
-            //Replaces all '\n' with '\n' + indents except for the last one
-            writer.write(indents + comment.substring(0, comment.length() - 1).replace("\n", "\n" + indents) + "\n");
     }
 
     /**
@@ -373,59 +1115,30 @@ public class ConfigUpdater {
      *
      * @param key the YAML key to be searched for in the section.
      * @param sectionContext the configuration section (Map) from the YAML file.
-     * @return the value associated with the correct key in the configuration section, or null if not found.
+     * @param sectionKeys the indexed keys of the sections looked up so far, each section is indexed once.
+     * @return the key as it is in the configuration section, or null if not found.
      */
-    private static Object getKeyAsObject(String key, Map<Object, Object> sectionContext) {
-        if (sectionContext.containsKey(key))
-            return key;
-
-        try {
-            Float keyFloat = Float.parseFloat(key);
-
-            if (sectionContext.containsKey(keyFloat))
-                return keyFloat;
-        } catch (NumberFormatException ignored) {}
-
-        try {
-            Double keyDouble = Double.parseDouble(key);
-
-            if (sectionContext.containsKey(keyDouble))
-                return keyDouble;
-        } catch (NumberFormatException ignored) {}
-
-        try {
-            Integer keyInteger = Integer.parseInt(key);
-
-            if (sectionContext.containsKey(keyInteger))
-                return keyInteger;
-        } catch (NumberFormatException ignored) {}
-
-        try {
-            Long longKey = Long.parseLong(key);
-
-            if (sectionContext.containsKey(longKey))
-                return longKey;
-        } catch (NumberFormatException ignored) {}
-
-        return null;
+    private static Object getKeyAsObject(String key, Map<Object, Object> sectionContext, Map<Map<Object, Object>, SectionKeys> sectionKeys) {
+        return sectionKeys.computeIfAbsent(sectionContext, SectionKeys::new).find(key);
     }
 
 	/**
 	 * Writes the current value with the provided trailing key to the provided writer.
 	 *
 	 * @param yamlWriter     The {@link Yaml} object used for converting to yaml
-	 * @param bufferedWriter The writer to write the value to.
-	 * @param indents        The string representation of the indentation.
+	 * @param writer         The writer to write the value to, at the depth of the key.
 	 * @param trailingKey    The trailing key for the YAML value.
 	 * @param currentValue   The current value to write as YAML.
 	 * @throws IOException If an I/O error occurs while writing the YAML value.
 	 */
-	private static void writeYamlValue(final Yaml yamlWriter, final BufferedWriter bufferedWriter, final String indents, final String trailingKey, final Object currentValue) throws IOException {
+	static void writeYamlValue(final Yaml yamlWriter, final IndentingWriter writer, final String trailingKey, final Object currentValue) throws IOException {
+        if (ScalarEmitter.write(writer, trailingKey, currentValue))
+            return;
+
         Map<String, Object> map = Collections.singletonMap(trailingKey, currentValue);
 		String yaml = yamlWriter.dump(map);
-		yaml = yaml.substring(0, yaml.length() - 1).replace("\n", "\n" + indents);
-		final String toWrite = indents + yaml + "\n";
-		bufferedWriter.write(toWrite);
+		//Every line is indented like the key, up to the last line break
+		writer.writeLines(yaml, 0, yaml.length() - 1);
 	}
 
     /**
@@ -433,42 +1146,55 @@ public class ConfigUpdater {
      * if it exists in the ignoredSectionsValues map.
      *
      * @param ignoredSectionsValues The map containing the ignored section-value mappings.
-     * @param bufferedWriter        The writer to write the value to.
+     * @param ignoredPaths          The index of the keys of the ignoredSectionsValues map.
+     * @param writer                The writer to write the value to.
      * @param fullKey               The full key to search for in the ignoredSectionsValues map.
+     * @return true if the key is an ignored section or inside one, so it must not be written again.
      * @throws IOException If an I/O error occurs while writing the value.
      */
-    private static boolean writeIgnoredSectionValueIfExists(final Map<String, String> ignoredSectionsValues, final BufferedWriter bufferedWriter, final String fullKey) throws IOException {
-        String ignored = ignoredSectionsValues.get(fullKey);
-        if (ignored != null) {
-            bufferedWriter.write(ignored);
-            return true;
-        }
-        for (final Map.Entry<String, String> entry : ignoredSectionsValues.entrySet()) {
-            if (KeyUtils.isSubKeyOf(entry.getKey(), fullKey, SEPARATOR)) {
+    private static boolean writeIgnoredSectionValueIfExists(final Map<String, String> ignoredSectionsValues, final IgnoredPaths ignoredPaths, final Writer writer, final String fullKey) throws IOException {
+        switch (ignoredPaths.match(fullKey)) {
+            case EXACT:
+                writer.write(ignoredSectionsValues.get(fullKey));
                 return true;
-            }
+            case DESCENDANT:
+                return true;
+            default:
+                return false;
         }
-        return false;
     }
 
 	/**
-	 * Writes a configuration section with the provided trailing key and the current value to the provided writer.
+	 * Writes a configuration section with the provided trailing key to the provided writer.
 	 *
-	 * @param bufferedWriter The writer to write the configuration section to.
-	 * @param indents        The string representation of the indentation level.
+	 * @param writer         The writer to write the configuration section to, at the depth of the section.
 	 * @param trailingKey    The trailing key for the configuration section.
-	 * @param configurationSection   The current value of the configuration section.
+	 * @param empty          Whether the configuration section has no keys.
 	 * @throws IOException If an I/O error occurs while writing the configuration section.
 	 */
-	private static void writeConfigurationSection(final BufferedWriter bufferedWriter, final String indents, final String trailingKey, final ConfigurationSection configurationSection) throws IOException {
-		bufferedWriter.write(indents + trailingKey + ":");
-		if (!(configurationSection).getKeys(false).isEmpty()) {
-			bufferedWriter.write("\n");
+	private static void writeConfigurationSection(final IndentingWriter writer, final String trailingKey, final boolean empty) throws IOException {
+		writer.writeKey(trailingKey);
+		if (!empty) {
+			writer.write('\n');
 		} else {
-			bufferedWriter.write(" {}\n");
+			writer.write(" {}\n");
 		}
 	}
 
+    /**
+     * Creates the Yaml instance used to load the file to update and to serialize its ignored sections,
+     * using the same constructor and representer as Bukkit.
+     *
+     * @return the Yaml instance.
+     */
+    static Yaml getYamlReader() {
+        DumperOptions options = new DumperOptions();
+        options.setLineBreak(DumperOptions.LineBreak.UNIX);
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+
+        return new Yaml(new YamlConstructor(), new YamlRepresenter(), options);
+    }
+
     private static Yaml getYamlWriter() {
         DumperOptions dumperOptions = new DumperOptions();
         dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
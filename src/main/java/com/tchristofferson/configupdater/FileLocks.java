@@ -0,0 +1,117 @@
+package com.tchristofferson.configupdater;
+
+import com.google.common.util.concurrent.Striped;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Locks making updates of the same file run one after another, so none of them reads the file while another is writing it.
+ * <p>
+ * Inside the JVM, files are locked by their canonical path, so different paths of the same file share a lock. The locks
+ * are striped over a fixed amount of lazily created locks, which only makes two different files wait for each other in
+ * the rare case that their paths share a stripe. These locks only coordinate the callers of this copy of the library:
+ * plugins shading and relocating it each have their own locks. Across processes, and across such copies inside the
+ * JVM, a lock on a sidecar file next to the updated file is held as well if requested. The updated file itself can't
+ * be locked, as it's replaced rather than written in place.
+ */
+final class FileLocks {
+
+    private static final Striped<Lock> LOCKS = Striped.lazyWeakLock(1024);
+    //Bounds of the wait between attempts to lock a lock file held by another copy of the library inside the JVM
+    private static final long MIN_RETRY_MILLIS = 1;
+    private static final long MAX_RETRY_MILLIS = 100;
+
+    private FileLocks() {}
+
+    /**
+     * Gets the path of the lock file of a file.
+     *
+     * @param file the updated file.
+     * @return the path of its lock file.
+     */
+    static Path getPath(Path file) {
+        return file.resolveSibling("." + file.getFileName() + ".lock");
+    }
+
+    /**
+     * Locks a file, waiting until other updates of the file through this copy of the library, and through other copies
+     * and in other processes if requested, are done.
+     *
+     * @param file     the file to lock.
+     * @param fileLock true to also lock the file across processes.
+     * @return the lock, which is released when closed.
+     * @throws IOException if an I/O error occurs while resolving the path of the file or locking its lock file, or if
+     *                     the thread is interrupted while waiting for the lock file.
+     */
+    static Closeable lock(File file, boolean fileLock) throws IOException {
+        File canonicalFile = file.getCanonicalFile();
+        Lock lock = LOCKS.get(canonicalFile.getPath());
+        lock.lock();
+
+        if (!fileLock)
+            return lock::unlock;
+
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(getPath(canonicalFile.toPath()), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock(channel, canonicalFile);
+            FileChannel lockedChannel = channel;
+
+            return () -> {
+                try {
+                    //Closing the channel releases its lock
+                    lockedChannel.close();
+                } finally {
+                    lock.unlock();
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            try {
+                if (channel != null)
+                    channel.close();
+            } finally {
+                lock.unlock();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Locks a lock file, waiting while another process or another copy of the library inside the JVM holds it.
+     *
+     * @param channel the channel of the lock file.
+     * @param file    the updated file.
+     * @throws IOException if an I/O error occurs while locking, or if the thread is interrupted while waiting.
+     */
+    private static void lock(FileChannel channel, File file) throws IOException {
+        long retryMillis = MIN_RETRY_MILLIS;
+
+        while (true) {
+            try {
+                //Waits for other processes, but the locks of the JVM are shared by all of its channels
+                channel.lock();
+                return;
+            } catch (OverlappingFileLockException e) {
+                //Another copy of the library inside the JVM, with its own in-JVM locks, is updating the file
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the lock of " + file);
+                }
+
+                retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.tchristofferson.configupdater;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The hashes of a previous update, stored in a sidecar file next to the updated file.
+ * <p>
+ * The sidecar has one {@code name=value} entry per line: the hash of the default YAML file ({@code resource}),
+ * the hash of the file after the update ({@code output}) and one {@code ignored} entry per ignored section.
+ */
+final class Fingerprint {
+
+    private static final String RESOURCE = "resource";
+    private static final String OUTPUT = "output";
+    private static final String IGNORED = "ignored";
+
+    private final String resourceHash;
+    private final String outputHash;
+    private final List<String> ignoredSections;
+
+    Fingerprint(String resourceHash, String outputHash, List<String> ignoredSections) {
+        this.resourceHash = resourceHash;
+        this.outputHash = outputHash;
+        this.ignoredSections = ignoredSections;
+    }
+
+    /**
+     * Gets the path of the fingerprint of a file.
+     *
+     * @param file the updated file.
+     * @return the path of its fingerprint.
+     */
+    static Path getPath(Path file) {
+        return file.resolveSibling("." + file.getFileName() + ".fingerprint");
+    }
+
+    /**
+     * Reads the fingerprint of a file.
+     *
+     * @param file the updated file.
+     * @return the fingerprint, or null if the file has no fingerprint.
+     * @throws IOException if an I/O error occurs while reading the fingerprint.
+     */
+    static Fingerprint read(Path file) throws IOException {
+        List<String> lines;
+
+        try {
+            lines = Files.readAllLines(getPath(file), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        String resourceHash = null;
+        String outputHash = null;
+        List<String> ignoredSections = new ArrayList<>();
+
+        for (String line : lines) {
+            int separatorIndex = line.indexOf('=');
+
+            if (separatorIndex == -1)
+                continue;
+
+            String name = line.substring(0, separatorIndex);
+            String value = line.substring(separatorIndex + 1);
+
+            if (name.equals(RESOURCE)) {
+                resourceHash = value;
+            } else if (name.equals(OUTPUT)) {
+                outputHash = value;
+            } else if (name.equals(IGNORED)) {
+                ignoredSections.add(value);
+            }
+        }
+
+        return resourceHash == null || outputHash == null ? null : new Fingerprint(resourceHash, outputHash, ignoredSections);
+    }
+
+    /**
+     * Writes this fingerprint next to the updated file.
+     *
+     * @param file the updated file.
+     * @throws IOException if an I/O error occurs while writing the fingerprint.
+     */
+    void write(Path file) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        builder.append(RESOURCE).append('=').append(resourceHash).append('\n');
+        builder.append(OUTPUT).append('=').append(outputHash).append('\n');
+
+        for (String ignoredSection : ignoredSections) {
+            builder.append(IGNORED).append('=').append(ignoredSection).append('\n');
+        }
+
+        Files.write(getPath(file), builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Fingerprint)) return false;
+
+        Fingerprint that = (Fingerprint) o;
+        return resourceHash.equals(that.resourceHash) && outputHash.equals(that.outputHash) && ignoredSections.equals(that.ignoredSections);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * resourceHash.hashCode() + outputHash.hashCode()) + ignoredSections.hashCode();
+    }
+}
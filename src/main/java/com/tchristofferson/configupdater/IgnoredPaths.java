@@ -0,0 +1,108 @@
+package com.tchristofferson.configupdater;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * An index of ignored sections, used to find out if a key is ignored or inside an ignored section.
+ * <p>
+ * The paths are indexed by their {@link String#hashCode()}. Since the hash of a string is built character by character,
+ * the hash of every parent path of a key is known while scanning the key once, so a lookup doesn't allocate anything.
+ */
+final class IgnoredPaths {
+
+    /**
+     * How a key relates to the ignored sections.
+     */
+    enum Match {
+        /** The key isn't ignored. */
+        NONE,
+        /** The key is an ignored section. */
+        EXACT,
+        /** The key is inside an ignored section. */
+        DESCENDANT
+    }
+
+    private final char separator;
+    //Sorted by hash, so paths with the same hash are next to each other
+    private final int[] hashes;
+    private final String[] paths;
+
+    /**
+     * Indexes ignored sections.
+     *
+     * @param paths     the full keys of the ignored sections.
+     * @param separator the separator between each part of the keys.
+     */
+    IgnoredPaths(Collection<String> paths, char separator) {
+        this.separator = separator;
+        this.paths = paths.stream()
+                .filter(path -> !path.isEmpty())
+                .distinct()
+                .sorted(Comparator.comparingInt(String::hashCode))
+                .toArray(String[]::new);
+        this.hashes = new int[this.paths.length];
+
+        for (int i = 0; i < this.paths.length; i++) {
+            hashes[i] = this.paths[i].hashCode();
+        }
+    }
+
+    /**
+     * Checks if a key is an ignored section or inside one, in a single pass over the key.
+     *
+     * @param key the full key to check.
+     * @return how the key relates to the ignored sections.
+     */
+    Match match(String key) {
+        if (paths.length == 0)
+            return Match.NONE;
+
+        int hash = 0;
+        boolean descendant = false;
+
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+
+            if (!descendant && c == separator)
+                descendant = contains(hash, key, i);
+
+            hash = 31 * hash + c;
+        }
+
+        //An ignored section is written even if it's also inside another ignored section
+        if (contains(hash, key, key.length()))
+            return Match.EXACT;
+
+        return descendant ? Match.DESCENDANT : Match.NONE;
+    }
+
+    /**
+     * Checks if the start of a key is one of the paths.
+     *
+     * @param hash   the hash of the start of the key.
+     * @param key    the key.
+     * @param length the length of the start of the key.
+     * @return true if the start of the key is an ignored section.
+     */
+    private boolean contains(int hash, String key, int length) {
+        int index = Arrays.binarySearch(hashes, hash);
+
+        if (index < 0)
+            return false;
+
+        while (index > 0 && hashes[index - 1] == hash) {
+            index--;
+        }
+
+        for (; index < hashes.length && hashes[index] == hash; index++) {
+            String path = paths[index];
+
+            if (path.length() == length && key.regionMatches(0, path, 0, length))
+                return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,214 @@
+package com.tchristofferson.configupdater;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A buffered writer for YAML lines at the depth of the key being written. The indentation is copied from a shared array
+ * of spaces, and multi-line fragments like comments or serialized values are indented while they are copied into the
+ * buffer, so no line is put together as a string before it's written.
+ */
+final class IndentingWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 8192;
+    //Indentation is copied from this array, in parts if it's deeper
+    private static final char[] SPACES = new char[64];
+
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    private final Writer out;
+    private final char[] buffer;
+    private int size;
+    private int indentation;
+
+    /**
+     * Creates a writer with the default buffer size.
+     *
+     * @param out the writer the lines are written to.
+     */
+    IndentingWriter(Writer out) {
+        this(out, BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer.
+     *
+     * @param out        the writer the lines are written to.
+     * @param bufferSize the size of the buffer, 0 to write everything to the writer right away.
+     */
+    IndentingWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Indents the lines a fragment is split into, the same way keys written at the current depth are indented.
+     *
+     * @param fragment the lines to indent.
+     * @param depth    the amount of sections the lines are inside of.
+     * @return the indented lines, as {@link #writeBlock(String)} writes them.
+     */
+    static String indent(String fragment, int depth) {
+        StringWriter indented = new StringWriter(fragment.length() + 16);
+
+        try (IndentingWriter writer = new IndentingWriter(indented, 0)) {
+            writer.setDepth(depth);
+            writer.writeBlock(fragment);
+        } catch (IOException e) {
+            //StringWriter doesn't throw
+            throw new AssertionError(e);
+        }
+
+        return indented.toString();
+    }
+
+    /**
+     * Sets the depth of the lines written next.
+     *
+     * @param depth the amount of sections the lines are inside of, each indented by two spaces.
+     */
+    void setDepth(int depth) {
+        this.indentation = depth * 2;
+    }
+
+    /**
+     * Writes the indentation of the current depth.
+     *
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    void writeIndent() throws IOException {
+        for (int remaining = indentation; remaining > 0; remaining -= SPACES.length) {
+            write(SPACES, 0, Math.min(remaining, SPACES.length));
+        }
+    }
+
+    /**
+     * Writes a key at the current depth, followed by a colon.
+     *
+     * @param key the trailing key.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    void writeKey(String key) throws IOException {
+        writeIndent();
+        write(key);
+        write(':');
+    }
+
+    /**
+     * Writes each line of a part of a fragment at the current depth. The part is split at each '\n', including empty
+     * lines at its end, and every line is indented and ends with '\n'.
+     *
+     * @param fragment the fragment containing the lines.
+     * @param start    the start of the part.
+     * @param end      the end of the part.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    void writeLines(String fragment, int start, int end) throws IOException {
+        int lineStart = start;
+
+        while (true) {
+            int lineEnd = fragment.indexOf('\n', lineStart);
+
+            if (lineEnd == -1 || lineEnd >= end)
+                lineEnd = end;
+
+            writeIndent();
+            write(fragment, lineStart, lineEnd - lineStart);
+            write('\n');
+
+            if (lineEnd == end)
+                return;
+
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Writes each line of a fragment at the current depth, like {@link #writeLines(String, int, int)}. Line breaks at the
+     * end of the fragment don't become empty lines, and a fragment of only line breaks is written as a single one.
+     *
+     * @param fragment the lines to write.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    void writeBlock(String fragment) throws IOException {
+        int end = fragment.length();
+
+        while (end > 0 && fragment.charAt(end - 1) == '\n') {
+            end--;
+        }
+
+        if (end == 0 && !fragment.isEmpty()) {
+            write('\n');
+        } else {
+            writeLines(fragment, 0, end);
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (size == buffer.length) {
+            flushBuffer();
+
+            if (buffer.length == 0) {
+                out.write(c);
+                return;
+            }
+        }
+
+        buffer[size++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (len > buffer.length - size) {
+            flushBuffer();
+
+            //Larger than the buffer, copying it wouldn't save a write
+            if (len >= buffer.length) {
+                out.write(cbuf, off, len);
+                return;
+            }
+        }
+
+        System.arraycopy(cbuf, off, buffer, size, len);
+        size += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (len > buffer.length - size) {
+            flushBuffer();
+
+            if (len >= buffer.length) {
+                out.write(str, off, len);
+                return;
+            }
+        }
+
+        str.getChars(off, off + len, buffer, size);
+        size += len;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (size > 0) {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+}
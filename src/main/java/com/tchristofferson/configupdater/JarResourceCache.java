@@ -0,0 +1,197 @@
+package com.tchristofferson.configupdater;
+
+import com.google.common.base.Preconditions;
+import org.bukkit.plugin.Plugin;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads resources from a JAR that is opened once and kept open, instead of opening and inflating the JAR for every
+ * resource like {@link Plugin#getResource(String)} does.
+ * <p>
+ * The YAML entries of the JAR are indexed when it's opened, and the content of recently read YAML files is kept in
+ * memory up to a limit, so updating the same files again doesn't inflate them again. If the size or last modified time
+ * of the JAR changes, for example because the plugin was replaced, the JAR is opened again and the cached content is dropped.
+ * <pre>
+ * try (JarResourceCache resources = JarResourceCache.of(plugin)) {
+ *     for (String language : languages) {
+ *         String resourceName = "lang/" + language + ".yml";
+ *         ConfigUpdater.update(UpdateTemplate.of(resources, resourceName), new File(getDataFolder(), resourceName));
+ *     }
+ * }
+ * </pre>
+ */
+public final class JarResourceCache implements ResourceSource, Closeable {
+
+    private static final long DEFAULT_MAX_CACHED_BYTES = 4 * 1024 * 1024;
+
+    private final Path jar;
+    private final long maxCachedBytes;
+    //The most recently read YAML files last
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, ZipEntry> yamlEntries = new HashMap<>();
+    private long cachedBytes;
+    private ZipFile zipFile;
+    private FileTime lastModifiedTime;
+    private long size;
+
+    /**
+     * Constructs a cache of a JAR keeping up to 4 MiB of YAML content in memory.
+     *
+     * @param jar the JAR file.
+     */
+    public JarResourceCache(File jar) {
+        this(jar, DEFAULT_MAX_CACHED_BYTES);
+    }
+
+    /**
+     * Constructs a cache of a JAR.
+     *
+     * @param jar            the JAR file.
+     * @param maxCachedBytes the maximum size of the YAML content kept in memory. Files larger than this are never cached.
+     */
+    public JarResourceCache(File jar, long maxCachedBytes) {
+        Preconditions.checkArgument(maxCachedBytes >= 0, "The maximum cached bytes can't be negative!");
+        this.jar = jar.toPath();
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * Constructs a cache of the JAR a plugin was loaded from.
+     *
+     * @param plugin the main class instance where you extend JavaPlugin.
+     * @return the cache of the plugin's JAR.
+     * @throws IllegalArgumentException if the plugin wasn't loaded from a JAR file.
+     */
+    public static JarResourceCache of(Plugin plugin) {
+        CodeSource codeSource = plugin.getClass().getProtectionDomain().getCodeSource();
+        Preconditions.checkArgument(codeSource != null && codeSource.getLocation() != null, "The plugin wasn't loaded from a JAR!");
+
+        try {
+            File jar = Paths.get(codeSource.getLocation().toURI()).toFile();
+            Preconditions.checkArgument(jar.isFile(), "The plugin wasn't loaded from a JAR!");
+            return new JarResourceCache(jar);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("The plugin wasn't loaded from a JAR!", e);
+        }
+    }
+
+    /**
+     * Opens a resource inside the JAR. YAML files are read from memory if they were read recently.
+     *
+     * @param resourceName the path of the resource inside the JAR.
+     * @return a stream reading the resource, or null if it doesn't exist.
+     * @throws IOException if an I/O error occurs while reading the JAR.
+     */
+    @Override
+    public synchronized InputStream open(String resourceName) throws IOException {
+        //Same as Plugin.getResource, which accepts either separator
+        resourceName = resourceName.replace('\\', '/');
+        validate();
+        byte[] content = cache.get(resourceName);
+
+        if (content != null)
+            return new ByteArrayInputStream(content);
+
+        ZipEntry entry = yamlEntries.get(resourceName);
+
+        if (entry == null) {
+            //Other resources are never cached, and read right away so the stream doesn't depend on the JAR staying open
+            entry = zipFile.getEntry(resourceName);
+
+            if (entry == null || entry.isDirectory())
+                return null;
+
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                return new ByteArrayInputStream(UpdateTemplate.readFully(in));
+            }
+        }
+
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            content = UpdateTemplate.readFully(in);
+        }
+
+        if (content.length <= maxCachedBytes) {
+            cache.put(resourceName, content);
+            cachedBytes += content.length;
+            evict();
+        }
+
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Gets the YAML files inside the JAR.
+     *
+     * @return the paths of the YAML files, sorted by their path.
+     * @throws IOException if an I/O error occurs while opening the JAR.
+     */
+    public synchronized SortedSet<String> getYamlResources() throws IOException {
+        validate();
+        return Collections.unmodifiableSortedSet(new TreeSet<>(yamlEntries.keySet()));
+    }
+
+    /**
+     * Closes the JAR and drops the cached content. The cache can still be used after it was closed, the JAR is
+     * opened again when needed.
+     *
+     * @throws IOException if an I/O error occurs while closing the JAR.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        cachedBytes = 0;
+        yamlEntries.clear();
+
+        if (zipFile != null) {
+            ZipFile zipFile = this.zipFile;
+            this.zipFile = null;
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Opens the JAR if it isn't open or changed since it was opened, and indexes its YAML entries.
+     *
+     * @throws IOException if an I/O error occurs while opening the JAR.
+     */
+    private void validate() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+
+        if (zipFile != null && attributes.size() == size && attributes.lastModifiedTime().equals(lastModifiedTime))
+            return;
+
+        close();
+        zipFile = new ZipFile(jar.toFile());
+        lastModifiedTime = attributes.lastModifiedTime();
+        size = attributes.size();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+
+            if (!entry.isDirectory() && (name.endsWith(".yml") || name.endsWith(".yaml")))
+                yamlEntries.put(name, entry);
+        }
+    }
+
+    private void evict() {
+        Iterator<byte[]> iterator = cache.values().iterator();
+
+        while (cachedBytes > maxCachedBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+}
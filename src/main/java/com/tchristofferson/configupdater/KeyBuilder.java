@@ -6,7 +6,8 @@ public class KeyBuilder implements Cloneable {
 
     private final FileConfiguration config;
     private final char separator;
-    private final StringBuilder builder;
+    //The current path, or null if the builder is empty
+    private KeyPath path;
 
     /**
      * Constructs a new KeyBuilder instance.
@@ -17,7 +18,6 @@ public class KeyBuilder implements Cloneable {
     public KeyBuilder(FileConfiguration config, char separator) {
         this.config = config;
         this.separator = separator;
-        this.builder = new StringBuilder();
     }
 
     /**
@@ -28,7 +28,7 @@ public class KeyBuilder implements Cloneable {
     private KeyBuilder(KeyBuilder keyBuilder) {
         this.config = keyBuilder.config;
         this.separator = keyBuilder.separator;
-        this.builder = new StringBuilder(keyBuilder.toString());
+        this.path = keyBuilder.path;
     }
 
     /**
@@ -36,35 +36,23 @@ public class KeyBuilder implements Cloneable {
      * config does not contain the path, it removes the last part of the line
      * until it finds a valid path or becomes empty.
      *
-     * @param line the line to check if it belongs to the current path set in the {@link #builder}.
+     * @param line the line to check if it belongs to the current path set in the {@link #path}.
      * @param checkIfExists set to true to check if the path is valid in the config.
      */
     public void parseLine(String line, boolean checkIfExists) {
-        line = line.trim();
-
-        String[] currentSplitLine = line.split(":");
-
-        if (currentSplitLine.length > 2)
-            currentSplitLine = line.split(": ");
-
-        String key = currentSplitLine[0].replace("'", "").replace("\"", "");
+        String key = KeyUtils.parseKey(line.trim());
 
         if (checkIfExists) {
             //Checks keyBuilder path against config to see if the path is valid.
             //If the path doesn't exist in the config it keeps removing last key in keyBuilder.
-            while (builder.length() > 0 && !config.contains(builder.toString() + separator + key)) {
+            while (path != null && !config.contains(path.toString() + separator + key)) {
                 removeLastKey();
             }
         }
 
-        //Add the separator if there is already a key inside keyBuilder
-        //If currentSplitLine[0] is 'key2' and keyBuilder contains 'key1' the result will be 'key1.' if '.' is the separator
-        if (builder.length() > 0)
-            builder.append(separator);
-
-        //Appends the current key to keyBuilder
-        //If keyBuilder is 'key1.' and currentSplitLine[0] is 'key2' the resulting keyBuilder will be 'key1.key2' if separator is '.'
-        builder.append(key);
+        //Appends the current key to the path
+        //If the path is 'key1' and key is 'key2' the resulting path will be 'key1.key2' if separator is '.'
+        path = KeyPath.of(path, key, separator);
     }
 
     /**
@@ -73,10 +61,10 @@ public class KeyBuilder implements Cloneable {
      * @return the last key, or an empty string if the builder is empty.
      */
     public String getLastKey() {
-        if (builder.length() == 0)
+        if (path == null)
             return "";
 
-        return builder.toString().split("[" + separator + "]")[0];
+        return path.getLastSegment();
     }
 
     /**
@@ -85,14 +73,14 @@ public class KeyBuilder implements Cloneable {
      * @return true if the builder is empty; otherwise, false.
      */
     public boolean isEmpty() {
-        return builder.length() == 0;
+        return path == null;
     }
 
     /**
      * Clears the contents of the builder.
      */
     public void clear() {
-        builder.setLength(0);
+        path = null;
     }
     /**
      * Checks if the full key path represented by this instance is a sub-key of the specified parent key.
@@ -101,7 +89,7 @@ public class KeyBuilder implements Cloneable {
      * @return true if the full key path is a sub-key of the parentKey; otherwise, false.
      */
     public boolean isSubKeyOf(String parentKey) {
-        return KeyUtils.isSubKeyOf(parentKey, builder.toString(), separator);
+        return KeyUtils.isSubKeyOf(parentKey, toString(), separator);
     }
 
     /**
@@ -111,7 +99,7 @@ public class KeyBuilder implements Cloneable {
      * @return true if the subKey is a sub-key of the key path; otherwise, false.
      */
     public boolean isSubKey(String subKey) {
-        return KeyUtils.isSubKeyOf(builder.toString(), subKey, separator);
+        return KeyUtils.isSubKeyOf(toString(), subKey, separator);
     }
 
     /**
@@ -120,7 +108,7 @@ public class KeyBuilder implements Cloneable {
      * @return true if the key path is a configuration section; otherwise, false.
      */
     public boolean isConfigSection() {
-        String key = builder.toString();
+        String key = toString();
         return config.isConfigurationSection(key);
     }
 
@@ -130,7 +118,7 @@ public class KeyBuilder implements Cloneable {
      * @return true if the key path is a non-empty configuration section; otherwise, false.
      */
     public boolean isConfigSectionWithKeys() {
-        String key = builder.toString();
+        String key = toString();
         return config.isConfigurationSection(key) && !config.getConfigurationSection(key).getKeys(false).isEmpty();
     }
 
@@ -140,15 +128,8 @@ public class KeyBuilder implements Cloneable {
      * For example, if the input is 'key1.key2', the result will be 'key1'.
      */
     public void removeLastKey() {
-        if (builder.length() == 0)
-            return;
-
-        String keyString = builder.toString();
-        //Must be enclosed in brackets in case a regex special character is the separator
-        String[] split = keyString.split("[" + separator + "]");
-        //Makes sure begin index isn't < 0 (error). Occurs when there is only one key in the path
-        int minIndex = Math.max(0, builder.length() - split[split.length - 1].length() - 1);
-        builder.replace(minIndex, builder.length(), "");
+        if (path != null)
+            path = path.getParent();
     }
 
     /**
@@ -158,7 +139,7 @@ public class KeyBuilder implements Cloneable {
      */
     @Override
     public String toString() {
-        return builder.toString();
+        return path == null ? "" : path.toString();
     }
 
     /**
@@ -0,0 +1,289 @@
+package com.tchristofferson.configupdater;
+
+import java.util.*;
+
+/**
+ * The lines of YAML content and the lines each key spans, found by indentation without parsing the YAML.
+ * <p>
+ * A key spans its comments, its own line, and the lines of its value or its section. Comments after the last key aren't
+ * part of any key. The scan only understands block style YAML like the files written by {@link ConfigUpdater}, so callers
+ * should check that {@link #getKeys()} matches the keys the content actually loads to.
+ */
+final class KeyLines {
+
+    private final List<String> lines;
+    private final Map<String, Span> spans;
+    private final String lineSeparator;
+    private final boolean duplicateKeys;
+
+    private KeyLines(List<String> lines, Map<String, Span> spans, String lineSeparator, boolean duplicateKeys) {
+        this.lines = lines;
+        this.spans = spans;
+        this.lineSeparator = lineSeparator;
+        this.duplicateKeys = duplicateKeys;
+    }
+
+    /**
+     * Scans YAML content for the lines of each key.
+     *
+     * @param content   the YAML content.
+     * @param separator the separator between each part of the full keys.
+     * @return the scanned lines.
+     */
+    static KeyLines scan(String content, char separator) {
+        List<String> lines = splitLines(content);
+        Map<String, Span> spans = new LinkedHashMap<>();
+        Deque<Span> parents = new ArrayDeque<>();
+        //The first comment or blank line since the last line of a value, comments belong to the next key
+        int commentStart = -1;
+        int lastContentLine = -1;
+        //Lines indented more than this continue the value of the last key or list item, they can't be keys
+        int valueIndentation = -1;
+        boolean duplicateKeys = false;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = stripLineSeparator(lines.get(i));
+            String trimmed = line.trim();
+
+            if (trimmed.isEmpty()) {
+                if (commentStart == -1)
+                    commentStart = i;
+
+                continue;
+            }
+
+            int indentation = KeyUtils.getIndentation(line);
+
+            if (valueIndentation != -1 && indentation > valueIndentation) {
+                lastContentLine = i;
+                commentStart = -1;
+                continue;
+            }
+
+            if (trimmed.startsWith("#")) {
+                if (commentStart == -1)
+                    commentStart = i;
+
+                continue;
+            }
+
+            //List items belong to the key above them, even when they are as indented as the key
+            if (trimmed.equals("-") || trimmed.startsWith("- ")) {
+                valueIndentation = indentation;
+                lastContentLine = i;
+                commentStart = -1;
+                continue;
+            }
+
+            while (!parents.isEmpty() && parents.peek().indentation >= indentation) {
+                parents.pop().end = lastContentLine + 1;
+            }
+
+            String key = KeyUtils.parseKey(trimmed);
+            String fullKey = parents.isEmpty() ? key : parents.peek().key + separator + key;
+            Span span = new Span(fullKey, commentStart == -1 ? i : commentStart, i, indentation);
+
+            if (spans.put(fullKey, span) != null)
+                duplicateKeys = true;
+
+            parents.push(span);
+            valueIndentation = hasValue(trimmed) ? indentation : -1;
+            lastContentLine = i;
+            commentStart = -1;
+        }
+
+        while (!parents.isEmpty()) {
+            parents.pop().end = lastContentLine + 1;
+        }
+
+        return new KeyLines(lines, spans, content.contains("\r\n") ? "\r\n" : "\n", duplicateKeys);
+    }
+
+    /**
+     * Gets the lines of the content.
+     *
+     * @return the lines, each ending with its line separator except possibly the last one.
+     */
+    List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the full keys found in the content.
+     *
+     * @return the full keys in the order they are written.
+     */
+    Set<String> getKeys() {
+        return spans.keySet();
+    }
+
+    /**
+     * Checks if a full key was found more than once, in which case only the lines of its last occurrence are known.
+     *
+     * @return true if the content contains duplicate keys.
+     */
+    boolean hasDuplicateKeys() {
+        return duplicateKeys;
+    }
+
+    /**
+     * Gets the line separator the content uses.
+     *
+     * @return "\r\n" if the content contains it; otherwise, "\n".
+     */
+    String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    boolean contains(String key) {
+        return spans.containsKey(key);
+    }
+
+    /**
+     * Gets the first line of a key, which is its first comment line if it has comments.
+     *
+     * @param key the full key.
+     * @return the index of the first line.
+     */
+    int getStart(String key) {
+        return spans.get(key).start;
+    }
+
+    /**
+     * Gets the line the key itself is written on.
+     *
+     * @param key the full key.
+     * @return the index of the line of the key.
+     */
+    int getKeyLine(String key) {
+        return spans.get(key).keyLine;
+    }
+
+    /**
+     * Gets the line after the last line of the value or section of a key.
+     *
+     * @param key the full key.
+     * @return the index of the line after the key, which may be the amount of lines.
+     */
+    int getEnd(String key) {
+        return spans.get(key).end;
+    }
+
+    /**
+     * Gets the amount of spaces the key is indented with.
+     *
+     * @param key the full key.
+     * @return the indentation of the key.
+     */
+    int getIndentation(String key) {
+        return spans.get(key).indentation;
+    }
+
+    /**
+     * Copies the lines of a key, from the line of the key itself to the last line of its value or section, moved to
+     * another indentation. The comments above the key aren't copied.
+     *
+     * @param key         the full key.
+     * @param indentation the indentation the key is moved to.
+     * @return the lines, each ending with '\n'.
+     */
+    String copy(String key, int indentation) {
+        Span span = spans.get(key);
+        int shift = indentation - span.indentation;
+        int length = 0;
+
+        for (int i = span.keyLine; i < span.end; i++) {
+            length += lines.get(i).length() + Math.max(shift, 0);
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+
+        for (int i = span.keyLine; i < span.end; i++) {
+            String line = stripLineSeparator(lines.get(i));
+            //Lines that don't move are copied exactly, including the spaces of blank lines inside block scalars
+            builder.append(shift == 0 ? line : shiftLine(line, shift)).append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Checks if a key line has its value on the same line, like 'key: value', rather than a section or list below it.
+     *
+     * @param line the trimmed key line.
+     * @return true if the line contains a value.
+     */
+    private static boolean hasValue(String line) {
+        int valueIndex = line.indexOf(": ");
+
+        if (valueIndex == -1)
+            return false;
+
+        String value = line.substring(valueIndex + 2).trim();
+        return !value.isEmpty() && !value.startsWith("#");
+    }
+
+    private static List<String> splitLines(String content) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        int end;
+
+        while ((end = content.indexOf('\n', start)) != -1) {
+            lines.add(content.substring(start, end + 1));
+            start = end + 1;
+        }
+
+        if (start < content.length())
+            lines.add(content.substring(start));
+
+        return lines;
+    }
+
+    static String stripLineSeparator(String line) {
+        int end = line.length();
+
+        if (end > 0 && line.charAt(end - 1) == '\n')
+            end--;
+
+        if (end > 0 && line.charAt(end - 1) == '\r')
+            end--;
+
+        return line.substring(0, end);
+    }
+
+    static String shiftLine(String line, int shift) {
+        if (line.trim().isEmpty())
+            return "";
+
+        if (shift >= 0)
+            return spaces(shift) + line;
+
+        return line.substring(Math.min(-shift, KeyUtils.getIndentation(line)));
+    }
+
+    private static String spaces(int amount) {
+        StringBuilder builder = new StringBuilder(amount);
+
+        for (int i = 0; i < amount; i++) {
+            builder.append(' ');
+        }
+
+        return builder.toString();
+    }
+
+    private static final class Span {
+
+        private final String key;
+        private final int start;
+        private final int keyLine;
+        private final int indentation;
+        private int end;
+
+        private Span(String key, int start, int keyLine, int indentation) {
+            this.key = key;
+            this.start = start;
+            this.keyLine = keyLine;
+            this.indentation = indentation;
+        }
+    }
+}
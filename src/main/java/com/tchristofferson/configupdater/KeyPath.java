@@ -0,0 +1,178 @@
+package com.tchristofferson.configupdater;
+
+/**
+ * An immutable full key split into its parts, for example 'key1.key2' is the key 'key2' inside the section 'key1'.
+ * <p>
+ * A path keeps a reference to its parent path, so going up or down one key doesn't split or copy anything.
+ */
+final class KeyPath {
+
+    //Indentation of the first depths, deeper indentation is built when needed
+    private static final String[] INDENTS = new String[16];
+
+    static {
+        INDENTS[0] = "";
+
+        for (int i = 1; i < INDENTS.length; i++) {
+            INDENTS[i] = INDENTS[i - 1] + "  ";
+        }
+    }
+
+    private final KeyPath parent;
+    private final String segment;
+    private final String path;
+    private final char separator;
+    private final int depth;
+
+    private KeyPath(KeyPath parent, String segment, String path, char separator) {
+        this.parent = parent;
+        this.segment = segment;
+        this.path = path;
+        this.separator = separator;
+        this.depth = parent == null ? 1 : parent.depth + 1;
+    }
+
+    /**
+     * Splits a full key into a path.
+     *
+     * @param path      the full key. Every separator starts a new key, even if it is the first or last character.
+     * @param separator the separator between each part of the key.
+     * @return the path of the key.
+     */
+    static KeyPath of(String path, char separator) {
+        KeyPath keyPath = null;
+        int start = 0;
+        int end;
+
+        while ((end = path.indexOf(separator, start)) != -1) {
+            keyPath = new KeyPath(keyPath, path.substring(start, end), path.substring(0, end), separator);
+            start = end + 1;
+        }
+
+        return new KeyPath(keyPath, path.substring(start), path, separator);
+    }
+
+    /**
+     * Gets the path of a key inside a section.
+     *
+     * @param parent    the path of the section, or null if the key isn't inside a section.
+     * @param key       the key inside the section.
+     * @param separator the separator between each part of the key.
+     * @return the path of the key.
+     */
+    static KeyPath of(KeyPath parent, String key, char separator) {
+        return new KeyPath(parent, key, parent == null ? key : parent.path + separator + key, separator);
+    }
+
+    /**
+     * Gets the path of a key inside the section of this path.
+     *
+     * @param key the key inside the section.
+     * @return the path of the key.
+     */
+    KeyPath child(String key) {
+        return of(this, key, separator);
+    }
+
+    /**
+     * Gets the path of the section containing this key.
+     *
+     * @return the parent path, or null if this key isn't inside a section.
+     */
+    KeyPath getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the last key of the path, for example 'key2' for the path 'key1.key2'.
+     *
+     * @return the last key.
+     */
+    String getLastSegment() {
+        return segment;
+    }
+
+    /**
+     * Gets a key of the path.
+     *
+     * @param index the position of the key in the path, starting at 0 for the first key.
+     * @return the key at the position.
+     * @throws IndexOutOfBoundsException if the index isn't less than the depth of the path.
+     */
+    String getSegment(int index) {
+        if (index < 0 || index >= depth)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Depth: " + depth);
+
+        KeyPath keyPath = this;
+
+        for (int i = depth - 1; i > index; i--) {
+            keyPath = keyPath.parent;
+        }
+
+        return keyPath.segment;
+    }
+
+    /**
+     * Gets the amount of keys in the path.
+     *
+     * @return the depth of the path, which is 1 for keys that aren't inside a section.
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the indentation this key is written with.
+     *
+     * @return a string containing two spaces for each section this key is inside of.
+     */
+    String getIndents() {
+        return getIndents(depth - 1);
+    }
+
+    /**
+     * Gets the indentation of a key inside an amount of sections.
+     *
+     * @param level the amount of sections the key is inside of.
+     * @return a string containing two spaces for each level.
+     */
+    static String getIndents(int level) {
+        if (level < INDENTS.length)
+            return INDENTS[level];
+
+        StringBuilder builder = new StringBuilder(level * 2).append(INDENTS[INDENTS.length - 1]);
+
+        for (int i = INDENTS.length - 1; i < level; i++) {
+            builder.append("  ");
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof KeyPath))
+            return false;
+
+        KeyPath keyPath = (KeyPath) o;
+        return separator == keyPath.separator && path.equals(keyPath.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    /**
+     * Returns the full key of this path.
+     *
+     * @return the full key.
+     */
+    @Override
+    public String toString() {
+        return path;
+    }
+}
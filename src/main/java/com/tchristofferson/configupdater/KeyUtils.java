@@ -14,8 +14,9 @@ public class KeyUtils {
 		if (parentKey.isEmpty())
 			return false;
 
-		return subKey.startsWith(parentKey)
-				&& subKey.substring(parentKey.length()).startsWith(String.valueOf(separator));
+		return subKey.length() > parentKey.length()
+				&& subKey.charAt(parentKey.length()) == separator
+				&& subKey.startsWith(parentKey);
 	}
 
 	/**
@@ -26,12 +27,51 @@ public class KeyUtils {
 	 * @return a string contains only the amount of indentation spaces to add.
 	 */
 	public static String getIndents(final String key, final char separator) {
-		final String[] splitKey = key.split("[" + separator + "]");
-		final StringBuilder builder = new StringBuilder();
+		//Separators after the last part don't add indentation
+		int end = key.length();
 
-		for (int i = 1; i < splitKey.length; i++) {
-			builder.append("  ");
+		while (end > 0 && key.charAt(end - 1) == separator) {
+			end--;
 		}
-		return builder.toString();
+
+		int level = 0;
+
+		for (int i = 0; i < end; i++) {
+			if (key.charAt(i) == separator)
+				level++;
+		}
+
+		return KeyPath.getIndents(level);
+	}
+
+	/**
+	 * Gets the key of a YAML line, which is the part before the value with any quotes removed.
+	 *
+	 * @param line the trimmed line to get the key from.
+	 * @return the key of the line.
+	 */
+	public static String parseKey(final String line) {
+		String[] splitLine = line.split(":");
+
+		if (splitLine.length > 2)
+			splitLine = line.split(": ");
+
+		return splitLine[0].replace("'", "").replace("\"", "");
+	}
+
+	/**
+	 * Gets the amount of leading spaces of a line.
+	 *
+	 * @param line the line to count the leading spaces of.
+	 * @return the amount of leading spaces.
+	 */
+	public static int getIndentation(final String line) {
+		int indentation = 0;
+
+		while (indentation < line.length() && line.charAt(indentation) == ' ') {
+			indentation++;
+		}
+
+		return indentation;
 	}
 }
@@ -0,0 +1,114 @@
+package com.tchristofferson.configupdater;
+
+import com.google.common.base.Preconditions;
+import org.bukkit.plugin.Plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Where default YAML files are read from. Plugins read them from their JAR, while tools running without a server can
+ * read them from the classpath, a directory, memory or any plugin JAR.
+ */
+@FunctionalInterface
+public interface ResourceSource {
+
+    /**
+     * Opens a resource.
+     *
+     * @param resourceName the path of the resource, using '/' to separate directories.
+     * @return a stream reading the resource, or null if it doesn't exist.
+     * @throws IOException if an I/O error occurs while opening the resource.
+     */
+    InputStream open(String resourceName) throws IOException;
+
+    /**
+     * Gets a source reading the resources inside a plugin's JAR.
+     *
+     * @param plugin the main class instance where you extend JavaPlugin.
+     * @return the source of the plugin's resources.
+     */
+    static ResourceSource of(Plugin plugin) {
+        Objects.requireNonNull(plugin, "plugin");
+        return plugin::getResource;
+    }
+
+    /**
+     * Gets a source reading resources from a class loader.
+     *
+     * @param classLoader the class loader to read the resources from.
+     * @return the source of the class loader's resources.
+     */
+    static ResourceSource classpath(ClassLoader classLoader) {
+        Objects.requireNonNull(classLoader, "classLoader");
+        return classLoader::getResourceAsStream;
+    }
+
+    /**
+     * Gets a source reading resources from the files inside a directory.
+     *
+     * @param directory the directory the resource names are relative to.
+     * @return the source of the directory's files.
+     */
+    static ResourceSource directory(File directory) {
+        Path root = directory.toPath().toAbsolutePath().normalize();
+
+        return resourceName -> {
+            Path path = root.resolve(resourceName).normalize();
+
+            //Names like '../other.yml' must not read files outside of the directory
+            if (!path.startsWith(root) || !Files.isRegularFile(path))
+                return null;
+
+            return Files.newInputStream(path);
+        };
+    }
+
+    /**
+     * Gets a source reading resources from memory.
+     *
+     * @param resources the UTF-8 encoded content of each resource by its name.
+     * @return the source of the resources.
+     */
+    static ResourceSource of(Map<String, byte[]> resources) {
+        Objects.requireNonNull(resources, "resources");
+
+        return resourceName -> {
+            byte[] content = resources.get(resourceName);
+            return content == null ? null : new ByteArrayInputStream(content);
+        };
+    }
+
+    /**
+     * Gets a source reading resources from a JAR, without loading its classes. The JAR is opened each time a resource
+     * is read, so the file isn't kept open. Use a {@link JarResourceCache} to read many resources from the same JAR.
+     *
+     * @param jar the JAR file, for example the JAR of a plugin.
+     * @return the source of the resources inside the JAR.
+     */
+    static ResourceSource jar(File jar) {
+        Preconditions.checkArgument(jar.isFile(), "The JAR " + jar + " doesn't exist!");
+
+        return resourceName -> {
+            try (ZipFile zipFile = new ZipFile(jar)) {
+                ZipEntry entry = zipFile.getEntry(resourceName);
+
+                if (entry == null || entry.isDirectory())
+                    return null;
+
+                //The content is read before the JAR is closed
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    return new ByteArrayInputStream(UpdateTemplate.readFully(in));
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.tchristofferson.configupdater;
+
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes common values straight to a writer, producing exactly what SnakeYAML would dump for them.
+ * <p>
+ * Only booleans, integers, finite decimals, strings that SnakeYAML writes without quotes and non-empty lists of those are
+ * written. Anything else, like strings that need quoting, maps or serialized objects, is left to SnakeYAML.
+ */
+final class ScalarEmitter {
+
+    //SnakeYAML folds plain scalars with spaces after this column
+    private static final int BEST_WIDTH = 80;
+    private static final Resolver RESOLVER = new Resolver();
+
+    private ScalarEmitter() {}
+
+    /**
+     * Writes a key and its value at the depth of the writer, if the value is simple enough.
+     *
+     * @param writer  the writer to write to.
+     * @param key     the trailing key.
+     * @param value   the value of the key.
+     * @return true if the key and value were written; false if nothing was written and SnakeYAML has to be used.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    static boolean write(IndentingWriter writer, String key, Object value) throws IOException {
+        int prefixLength = key.length() + 2;
+
+        if (!isPlain(key, 0))
+            return false;
+
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+
+            if (list.isEmpty())
+                return false;
+
+            String[] items = new String[list.size()];
+
+            for (int i = 0; i < items.length; i++) {
+                //List items are written with the "- " indicator at the start of the line
+                if ((items[i] = toScalar(list.get(i), 2)) == null)
+                    return false;
+            }
+
+            writer.writeKey(key);
+            writer.write('\n');
+
+            for (String item : items) {
+                writer.writeIndent();
+                writer.write("- ");
+                writer.write(item);
+                writer.write('\n');
+            }
+
+            return true;
+        }
+
+        String scalar = toScalar(value, prefixLength);
+
+        if (scalar == null)
+            return false;
+
+        writer.writeKey(key);
+        writer.write(' ');
+        writer.write(scalar);
+        writer.write('\n');
+        return true;
+    }
+
+    /**
+     * Converts a value to the plain scalar SnakeYAML would write for it.
+     *
+     * @param value        the value to convert.
+     * @param prefixLength the length of the line before the value.
+     * @return the scalar, or null if the value can't be written as a plain scalar.
+     */
+    private static String toScalar(Object value, int prefixLength) {
+        if (value instanceof String)
+            return isPlain((String) value, prefixLength) ? (String) value : null;
+
+        if (value instanceof Boolean)
+            return value.toString();
+
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+            return value.toString();
+
+        if (value instanceof Double || value instanceof Float) {
+            String scalar = value.toString();
+            //NaN and infinity are written differently, and some decimals don't read back as decimals without a tag
+            return RESOLVER.resolve(NodeId.scalar, scalar, true).equals(Tag.FLOAT) ? scalar : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks if SnakeYAML writes a string without quotes. This is deliberately stricter than SnakeYAML, so only
+     * strings starting with a letter and containing letters, digits, spaces and a few safe characters are allowed.
+     *
+     * @param s            the string to check.
+     * @param prefixLength the length of the line before the string.
+     * @return true if the string can be written as it is.
+     */
+    private static boolean isPlain(String s, int prefixLength) {
+        int length = s.length();
+
+        if (length == 0 || prefixLength + length > BEST_WIDTH)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))
+                continue;
+
+            //Strings starting with a digit may look like numbers and are quoted by some SnakeYAML versions
+            if (i == 0 || (!(c >= '0' && c <= '9') && c != ' ' && c != '_' && c != '-' && c != '.' && c != '/'))
+                return false;
+        }
+
+        //Strings like "true", "yes" or "null" would read back as other types
+        return s.charAt(length - 1) != ' ' && RESOLVER.resolve(NodeId.scalar, s, true).equals(Tag.STR);
+    }
+}
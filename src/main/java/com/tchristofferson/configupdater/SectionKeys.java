@@ -0,0 +1,108 @@
+package com.tchristofferson.configupdater;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The keys of a section loaded by SnakeYAML, indexed so a key written as a string can be found in a single lookup
+ * even if SnakeYAML loaded it as a number.
+ * <p>
+ * Sections without number keys, like sections with thousands of player UUIDs, never parse a key as a number.
+ */
+final class SectionKeys {
+
+    private final Map<Object, Object> section;
+    private final boolean hasNumberKeys;
+    //Number keys by their string form, null if the section has number keys of different types
+    private final Map<String, Object> numberKeys;
+
+    /**
+     * Indexes the keys of a section.
+     *
+     * @param section the section loaded by SnakeYAML.
+     */
+    SectionKeys(Map<Object, Object> section) {
+        this.section = section;
+        Map<String, Object> numberKeys = new HashMap<>();
+        Class<?> numberType = null;
+        boolean mixedTypes = false;
+
+        for (Object key : section.keySet()) {
+            if (!isNumberKey(key))
+                continue;
+
+            if (numberType == null) {
+                numberType = key.getClass();
+            } else if (numberType != key.getClass()) {
+                //A string could match keys of different types, so the order of find(String) has to decide
+                mixedTypes = true;
+            }
+
+            numberKeys.put(key.toString(), key);
+        }
+
+        this.hasNumberKeys = numberType != null;
+        this.numberKeys = mixedTypes ? null : numberKeys;
+    }
+
+    /**
+     * Attempts to find the correct key in the section using the provided key.
+     * The key is matched as a string first, then as a float, double, integer and long.
+     *
+     * @param key the YAML key to be searched for in the section.
+     * @return the key as it is in the section, or null if not found.
+     */
+    Object find(String key) {
+        if (section.containsKey(key))
+            return key;
+
+        if (!hasNumberKeys)
+            return null;
+
+        if (numberKeys != null) {
+            Object numberKey = numberKeys.get(key);
+
+            if (numberKey != null)
+                return numberKey;
+        }
+
+        //The key may be written differently than the number, like '01' for 1
+        return parseNumberKey(key);
+    }
+
+    private Object parseNumberKey(String key) {
+        try {
+            Float keyFloat = Float.parseFloat(key);
+
+            if (section.containsKey(keyFloat))
+                return keyFloat;
+        } catch (NumberFormatException ignored) {}
+
+        try {
+            Double keyDouble = Double.parseDouble(key);
+
+            if (section.containsKey(keyDouble))
+                return keyDouble;
+        } catch (NumberFormatException ignored) {}
+
+        try {
+            Integer keyInteger = Integer.parseInt(key);
+
+            if (section.containsKey(keyInteger))
+                return keyInteger;
+        } catch (NumberFormatException ignored) {}
+
+        try {
+            Long longKey = Long.parseLong(key);
+
+            if (section.containsKey(longKey))
+                return longKey;
+        } catch (NumberFormatException ignored) {}
+
+        return null;
+    }
+
+    private static boolean isNumberKey(Object key) {
+        return key instanceof Float || key instanceof Double || key instanceof Integer || key instanceof Long;
+    }
+}
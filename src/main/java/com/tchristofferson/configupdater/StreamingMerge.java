@@ -0,0 +1,325 @@
+package com.tchristofferson.configupdater;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * The values of a file to update, read from its stream of YAML events instead of loading the whole file.
+ * <p>
+ * Only the values of the keys inside the template are loaded, everything else is skipped as it streams by. Sections are only recorded as being empty or not, their keys are read one by one. The values are the
+ * same as {@link org.bukkit.configuration.file.FileConfiguration#get(String)} returns for the fully loaded file,
+ * except that sections are represented by maps, see {@link #get(String)}.
+ * <p>
+ * Only the subset of YAML the stream can follow is supported. Keys of the template must be plain strings or decimal
+ * integers without the separator, and must not be duplicated. Aliases, merge keys and tagged sections on the way to them
+ * aren't supported. Content outside of that subset makes {@link #read(Reader, UpdateTemplate, Yaml)} return null, so the
+ * file can be loaded at once instead. Ignored sections aren't supported either, they are copied from the lines of the file.
+ */
+final class StreamingMerge {
+
+    //A section with at least one key, only whether a section is empty matters when it's written
+    private static final Map<Object, Object> SECTION = Collections.singletonMap("", "");
+    private static final Resolver RESOLVER = new Resolver();
+    private static final DumperOptions DUMPER_OPTIONS = new DumperOptions();
+
+    private final UpdateTemplate template;
+    private final Yaml yaml;
+    private final Map<String, Object> values = new HashMap<>();
+    //The keys read so far that are followed or loaded, to detect duplicates
+    private final Set<String> readKeys = new HashSet<>();
+
+    private StreamingMerge(UpdateTemplate template, Yaml yaml) {
+        this.template = template;
+        this.yaml = yaml;
+    }
+
+    /**
+     * Reads the values of a file to update.
+     *
+     * @param reader   the reader of the file, which isn't closed.
+     * @param template the template the file is updated against.
+     * @param yaml     the Yaml instance used to load the values, the same one the whole file would be loaded with.
+     * @return the values, or null if the file isn't supported and has to be loaded at once.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    static StreamingMerge read(Reader reader, UpdateTemplate template, Yaml yaml) throws IOException {
+        StreamingMerge merge = new StreamingMerge(template, yaml);
+
+        try {
+            merge.readStream(new AnchorCheckingIterator(yaml.parse(reader).iterator()));
+        } catch (UnsupportedContentException e) {
+            return null;
+        } catch (YAMLException e) {
+            //The file is loaded at once, which reports the error the same way as without streaming
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+
+            return null;
+        }
+
+        return merge;
+    }
+
+    /**
+     * Gets the current value of a key of the template.
+     *
+     * @param key the full key.
+     * @return the value of the key, or null if the file doesn't contain it. Sections are maps, which are empty if the
+     * section has no keys.
+     */
+    Object get(String key) {
+        return values.get(key);
+    }
+
+    private void readStream(Iterator<Event> events) throws IOException {
+        expect(events.next(), StreamStartEvent.class);
+        Event event = events.next();
+
+        //An empty file has no documents
+        if (event instanceof StreamEndEvent)
+            return;
+
+        expect(event, DocumentStartEvent.class);
+        event = events.next();
+        expect(event, MappingStartEvent.class);
+
+        if (((MappingStartEvent) event).getTag() != null)
+            throw new UnsupportedContentException();
+
+        readMapping(events, null);
+        expect(events.next(), DocumentEndEvent.class);
+        //Files with more than one document can't be loaded
+        expect(events.next(), StreamEndEvent.class);
+    }
+
+    /**
+     * Reads the keys of a section, after its mapping start event.
+     *
+     * @param events the events of the file.
+     * @param path   the full key of the section, or null for the root.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    private void readMapping(Iterator<Event> events, String path) throws IOException {
+        boolean recordSection = path != null && template.contains(path);
+        Event event;
+
+        while (!((event = events.next()) instanceof MappingEndEvent)) {
+            String key = toKey(event);
+            String fullKey = path == null ? key : path + ConfigUpdater.SEPARATOR + key;
+            Event value = events.next();
+
+            //Keys set to null aren't part of a section, so they don't make it not empty
+            if (recordSection && !isNull(value))
+                values.put(path, SECTION);
+
+            if (template.contains(fullKey)) {
+                checkUnique(fullKey);
+
+                if (value instanceof MappingStartEvent) {
+                    if (((MappingStartEvent) value).getTag() != null)
+                        throw new UnsupportedContentException();
+
+                    values.put(fullKey, Collections.emptyMap());
+                    readMapping(events, fullKey);
+                } else {
+                    values.put(fullKey, load(value, events));
+                }
+            } else {
+                skip(value, events);
+            }
+        }
+    }
+
+    /**
+     * Converts a key to the string it's stored as in a configuration section.
+     *
+     * @param event the event of the key.
+     * @return the key.
+     * @throws UnsupportedContentException if the key isn't a string or decimal integer, or contains the separator.
+     */
+    private static String toKey(Event event) {
+        if (!(event instanceof ScalarEvent))
+            throw new UnsupportedContentException();
+
+        ScalarEvent scalar = (ScalarEvent) event;
+        String key = scalar.getValue();
+
+        if (scalar.getTag() != null || key.indexOf(ConfigUpdater.SEPARATOR) != -1 || key.equals("=="))
+            throw new UnsupportedContentException();
+
+        //Quoted keys are always strings
+        if (!scalar.getImplicit().canOmitTagInPlainScalar())
+            return key;
+
+        Tag tag = RESOLVER.resolve(NodeId.scalar, key, true);
+
+        if (tag.equals(Tag.STR) || (tag.equals(Tag.INT) && isDecimal(key)))
+            return key;
+
+        //Booleans, decimals, null and merge keys are converted or handled differently when loaded
+        throw new UnsupportedContentException();
+    }
+
+    /**
+     * Checks if an integer is written the same way it's converted back to a string.
+     *
+     * @param s the integer.
+     * @return true if the integer is written in decimal without leading zeros or a plus sign.
+     */
+    private static boolean isDecimal(String s) {
+        int start = s.startsWith("-") ? 1 : 0;
+
+        if (s.length() == start || (s.charAt(start) == '0' && s.length() > 1))
+            return false;
+
+        for (int i = start; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c < '0' || c > '9')
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isNull(Event event) {
+        if (event instanceof AliasEvent)
+            throw new UnsupportedContentException();
+
+        if (!(event instanceof ScalarEvent))
+            return false;
+
+        ScalarEvent scalar = (ScalarEvent) event;
+
+        if (scalar.getTag() != null)
+            return scalar.getTag().equals(Tag.NULL.getValue());
+
+        return scalar.getImplicit().canOmitTagInPlainScalar() && RESOLVER.resolve(NodeId.scalar, scalar.getValue(), true).equals(Tag.NULL);
+    }
+
+    private void checkUnique(String fullKey) {
+        if (!readKeys.add(fullKey))
+            throw new UnsupportedContentException();
+    }
+
+    /**
+     * Loads a value by writing its events back to YAML, so it's constructed exactly like the whole file would be.
+     *
+     * @param first  the first event of the value.
+     * @param events the events of the file.
+     * @return the loaded value.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    private Object load(Event first, Iterator<Event> events) throws IOException {
+        StringWriter writer = new StringWriter();
+        Emitter emitter = new Emitter(writer, DUMPER_OPTIONS);
+        emitter.emit(new StreamStartEvent(null, null));
+        emitter.emit(new DocumentStartEvent(null, null, false, null, Collections.emptyMap()));
+        Event event = first;
+        int depth = 0;
+
+        while (true) {
+            //The anchor of an alias may be outside of the value
+            if (event instanceof AliasEvent)
+                throw new UnsupportedContentException();
+
+            emitter.emit(event);
+
+            if (event instanceof CollectionStartEvent) {
+                depth++;
+            } else if (event instanceof CollectionEndEvent) {
+                depth--;
+            }
+
+            if (depth == 0)
+                break;
+
+            event = events.next();
+        }
+
+        emitter.emit(new DocumentEndEvent(null, null, false));
+        emitter.emit(new StreamEndEvent(null, null));
+        return yaml.load(writer.toString());
+    }
+
+    private static void skip(Event first, Iterator<Event> events) {
+        Event event = first;
+        int depth = 0;
+
+        while (true) {
+            if (event instanceof CollectionStartEvent) {
+                depth++;
+            } else if (event instanceof CollectionEndEvent) {
+                depth--;
+            }
+
+            if (depth == 0)
+                return;
+
+            event = events.next();
+        }
+    }
+
+    private static void expect(Event event, Class<? extends Event> type) {
+        if (!type.isInstance(event))
+            throw new UnsupportedContentException();
+    }
+
+    /**
+     * Checks that every alias refers to an anchor defined before it, like composing the whole file does, even for the
+     * values that are skipped.
+     */
+    private static final class AnchorCheckingIterator implements Iterator<Event> {
+
+        private final Iterator<Event> events;
+        private final Set<String> anchors = new HashSet<>();
+
+        private AnchorCheckingIterator(Iterator<Event> events) {
+            this.events = events;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return events.hasNext();
+        }
+
+        @Override
+        public Event next() {
+            Event event = events.next();
+
+            if (event instanceof NodeEvent) {
+                String anchor = ((NodeEvent) event).getAnchor();
+
+                if (event instanceof AliasEvent) {
+                    if (!anchors.contains(anchor))
+                        throw new UnsupportedContentException();
+                } else if (anchor != null) {
+                    anchors.add(anchor);
+                }
+            }
+
+            return event;
+        }
+    }
+
+    /**
+     * Thrown while reading content the stream can't follow.
+     */
+    private static final class UnsupportedContentException extends RuntimeException {
+
+        private UnsupportedContentException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.tchristofferson.configupdater;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A precompiled index of a default YAML file, stored next to it inside the JAR, for example {@code config.yml.index}
+ * next to {@code config.yml}. It holds the keys in order, whether they are sections and the spans of their comments,
+ * so updates read the index instead of parsing the resource line by line. The default values are still loaded from the
+ * resource, but only once a key is missing from a file being updated.
+ * <p>
+ * An index is only used while the hash of the resource matches the hash it was built from, a stale index is ignored.
+ * Indexes are usually built by the {@code index} goal of the ConfigUpdater Maven plugin.
+ */
+public final class TemplateIndex {
+
+    /**
+     * The suffix added to the name of a resource to get the name of its index.
+     */
+    public static final String SUFFIX = ".index";
+
+    //"CUIX"
+    private static final int MAGIC = 0x43554958;
+    private static final int VERSION = 1;
+    private static final int SECTION = 1;
+    private static final int EMPTY_SECTION = 2;
+
+    private TemplateIndex() {}
+
+    /**
+     * Gets the name of the index of a resource.
+     *
+     * @param resourceName the path of the resource.
+     * @return the path of its index.
+     */
+    public static String getIndexName(String resourceName) {
+        return resourceName + SUFFIX;
+    }
+
+    /**
+     * Writes the index of a template.
+     *
+     * @param template the template to index.
+     * @param out      the stream to write the index to, which is left open.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    public static void write(UpdateTemplate template, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeUTF(template.getContentHash());
+        data.writeInt(template.size());
+
+        for (int i = 0; i < template.size(); i++) {
+            KeyPath parent = template.getPath(i).getParent();
+            //Parents come before their keys, so a key is stored as the ordinal of its parent and its last part
+            data.writeInt(parent == null ? -1 : template.getOrdinal(parent.toString()));
+            data.writeUTF(template.getTrailingKey(i));
+            data.writeByte((template.isSection(i) ? SECTION : 0) | (template.isEmptySection(i) ? EMPTY_SECTION : 0));
+        }
+
+        template.writeComments(data);
+        data.flush();
+    }
+
+    /**
+     * Reads the index of a resource.
+     *
+     * @param source       where the resource and its index are read from.
+     * @param resourceName the path of the resource.
+     * @param contentHash  the hash of the resource.
+     * @param content      the content of the resource.
+     * @return the template read from the index, or null if there is no index for this content.
+     * @throws IOException if an I/O error occurs while opening the index.
+     */
+    static UpdateTemplate read(ResourceSource source, String resourceName, String contentHash, String content) throws IOException {
+        InputStream index = source.open(getIndexName(resourceName));
+
+        if (index == null)
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(index))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION || !in.readUTF().equals(contentHash))
+                return null;
+
+            int size = in.readInt();
+
+            //Each key takes at least a character of the content
+            if (size < 0 || size > content.length())
+                return null;
+
+            List<String> keys = new ArrayList<>(size);
+            boolean[] sections = new boolean[size];
+            boolean[] emptySections = new boolean[size];
+
+            for (int i = 0; i < size; i++) {
+                int parent = in.readInt();
+                String key = in.readUTF();
+
+                if (parent < -1 || parent >= i)
+                    return null;
+
+                keys.add(parent == -1 ? key : keys.get(parent) + ConfigUpdater.SEPARATOR + key);
+                int flags = in.readUnsignedByte();
+                sections[i] = (flags & SECTION) != 0;
+                emptySections[i] = (flags & EMPTY_SECTION) != 0;
+            }
+
+            return UpdateTemplate.of(contentHash, content, keys, sections, emptySections, in);
+        } catch (IOException e) {
+            //A broken index is ignored like a stale one, the resource is compiled instead
+            return null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.tchristofferson.configupdater;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Finds out if a file has to be rewritten by an update, without writing anything.
+ * <p>
+ * The keys of the file are compared with the keys of the template first. Only if they match is the content of the file
+ * compared with what the update would write, in place and up to the first difference, so the update is never kept in memory.
+ */
+final class UpdateCheck {
+
+    private UpdateCheck() {}
+
+    /**
+     * Checks if loaded YAML values have exactly the keys of a template. The keys inside ignored sections aren't compared,
+     * but every ignored section has to be in the values. Keys set to null count as missing, as Bukkit doesn't load them.
+     *
+     * @param template        the template to compare with.
+     * @param values          the values loaded from the file.
+     * @param ignoredSections the full keys of the ignored sections.
+     * @return true if the values have the same keys; false if keys are missing or obsolete.
+     */
+    static boolean hasSameKeys(UpdateTemplate template, Map<?, ?> values, List<String> ignoredSections) {
+        return hasSameKeys(template.getKeys(), template::contains, values, ignoredSections);
+    }
+
+    /**
+     * Checks if loaded YAML values have exactly the keys of a default file, without a compiled template of it.
+     *
+     * @param defaultKeys     the full keys of the default file.
+     * @param isDefaultKey    checks if a full key is one of the default keys, faster than searching them.
+     * @param values          the values loaded from the file.
+     * @param ignoredSections the full keys of the ignored sections.
+     * @return true if the values have the same keys; false if keys are missing or obsolete.
+     */
+    static boolean hasSameKeys(Collection<String> defaultKeys, Predicate<String> isDefaultKey, Map<?, ?> values, List<String> ignoredSections) {
+        IgnoredPaths ignoredPaths = new IgnoredPaths(ignoredSections, ConfigUpdater.SEPARATOR);
+        int templateKeys = 0;
+
+        for (String key : defaultKeys) {
+            if (ignoredPaths.match(key) != IgnoredPaths.Match.DESCENDANT)
+                templateKeys++;
+        }
+
+        //The amount of keys and of ignored sections found in the values
+        int[] found = new int[2];
+        return countKeys(null, values, isDefaultKey, ignoredPaths, found) && found[0] == templateKeys && found[1] == ignoredSections.size();
+    }
+
+    private static boolean countKeys(String parent, Map<?, ?> section, Predicate<String> isDefaultKey, IgnoredPaths ignoredPaths, int[] found) {
+        for (Map.Entry<?, ?> entry : section.entrySet()) {
+            //Bukkit drops keys set to null when loading, so they are missing, like for the update
+            if (entry.getValue() == null)
+                continue;
+
+            String key = parent == null ? String.valueOf(entry.getKey()) : parent + ConfigUpdater.SEPARATOR + entry.getKey();
+            IgnoredPaths.Match match = ignoredPaths.match(key);
+
+            if (match == IgnoredPaths.Match.DESCENDANT)
+                continue;
+
+            if (!isDefaultKey.test(key))
+                return false;
+
+            found[0]++;
+
+            if (match == IgnoredPaths.Match.EXACT) {
+                //An ignored value that isn't a section fails the update
+                if (!(entry.getValue() instanceof Map))
+                    return false;
+
+                found[1]++;
+            } else if (entry.getValue() instanceof Map && !countKeys(key, (Map<?, ?>) entry.getValue(), isDefaultKey, ignoredPaths, found)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if the content of a file is what an update would write, for a file with the same keys as the template. The
+     * update is written by {@link ConfigUpdater#write(UpdateTemplate, Function, Writer, Map)} into a writer comparing it
+     * with the content, which stops the update at the first difference.
+     *
+     * @param template              the template the file is updated against.
+     * @param currentValues         the current value of each full key.
+     * @param content               the content of the file.
+     * @param ignoredSectionsValues the ignored sections as the update writes them.
+     * @return true if the update wouldn't change the content; false if it would.
+     * @throws IOException never, the content is only compared.
+     */
+    static boolean isUpdated(UpdateTemplate template, Function<String, Object> currentValues, String content, Map<String, String> ignoredSectionsValues) throws IOException {
+        //Updates always write '\n' and end with a line break
+        if (content.indexOf('\r') != -1 || (!content.isEmpty() && content.charAt(content.length() - 1) != '\n'))
+            return false;
+
+        ContentMatcher matcher = new ContentMatcher(content);
+
+        try {
+            ConfigUpdater.write(template, currentValues, matcher, ignoredSectionsValues);
+        } catch (MismatchException e) {
+            return false;
+        }
+
+        return matcher.position == content.length();
+    }
+
+    /**
+     * A writer comparing what is written with the content at its position, without keeping what is written.
+     */
+    private static final class ContentMatcher extends Writer {
+
+        private final String content;
+        private int position;
+
+        private ContentMatcher(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws MismatchException {
+            if (!content.regionMatches(position, str, off, len))
+                throw new MismatchException();
+
+            position += len;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws MismatchException {
+            for (int i = off; i < off + len; i++) {
+                write(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(int c) throws MismatchException {
+            if (position >= content.length() || content.charAt(position) != c)
+                throw new MismatchException();
+
+            position++;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * Thrown by the content matcher at the first difference, to stop writing the rest of the update.
+     */
+    private static final class MismatchException extends IOException {
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            //Only used to stop the update, so the stack trace is never needed
+            return this;
+        }
+    }
+}
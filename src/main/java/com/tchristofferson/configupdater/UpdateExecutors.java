@@ -0,0 +1,57 @@
+package com.tchristofferson.configupdater;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the executor asynchronous updates run on when no executor is supplied.
+ */
+final class UpdateExecutors {
+
+    private UpdateExecutors() {
+    }
+
+    /**
+     * Gets the default executor, which uses virtual threads on Java 21 or newer and a small pool of daemon threads otherwise.
+     *
+     * @return the default executor.
+     */
+    static Executor getDefault() {
+        return DefaultHolder.EXECUTOR;
+    }
+
+    private static Executor create() {
+        try {
+            //Looked up reflectively, this library is compiled for Java 8
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) method.invoke(null);
+        } catch (ReflectiveOperationException ignored) {}
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreads("ConfigUpdater-"));
+        //Idle threads are stopped, updates mostly happen at startup and on reload
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates a thread factory for daemon threads, which don't keep the server from shutting down.
+     *
+     * @param namePrefix the prefix of the thread names, followed by the number of the thread.
+     * @return the thread factory.
+     */
+    static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class DefaultHolder {
+        private static final Executor EXECUTOR = create();
+    }
+}
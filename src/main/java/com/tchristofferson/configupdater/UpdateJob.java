@@ -0,0 +1,159 @@
+package com.tchristofferson.configupdater;
+
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A file to update against a default YAML file, used to update many files at once with
+ * {@link ConfigUpdater#updateAll(java.util.Collection, java.util.concurrent.Executor)}.
+ */
+public final class UpdateJob {
+
+    private final ResourceSource source;
+    private final String resourceName;
+    private final UpdateTemplate template;
+    private final File toUpdate;
+    private final List<String> ignoredSections;
+    private final UpdateOptions options;
+
+    /**
+     * Constructs a job updating a file against a YAML file inside the JAR.
+     *
+     * @param plugin          the main class instance where you extend JavaPlugin.
+     * @param resourceName    the path to your original YAML file inside the JAR.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the array of ignored section values, where each element represents the full path or the first path of the ignored section.
+     */
+    public UpdateJob(Plugin plugin, String resourceName, File toUpdate, String... ignoredSections) {
+        this(plugin, resourceName, toUpdate, Arrays.asList(ignoredSections));
+    }
+
+    /**
+     * Constructs a job updating a file against a YAML file inside the JAR.
+     *
+     * @param plugin          the main class instance where you extend JavaPlugin.
+     * @param resourceName    the path to your original YAML file inside the JAR.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of the ignored section.
+     */
+    public UpdateJob(Plugin plugin, String resourceName, File toUpdate, List<String> ignoredSections) {
+        this(ResourceSource.of(plugin), resourceName, toUpdate, ignoredSections);
+    }
+
+    /**
+     * Constructs a job updating a file against a YAML file read from a source, for example to update files without a server.
+     *
+     * @param source          where the YAML file is read from.
+     * @param resourceName    the path to your original YAML file inside the source.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of the ignored section.
+     */
+    public UpdateJob(ResourceSource source, String resourceName, File toUpdate, List<String> ignoredSections) {
+        this(Objects.requireNonNull(source, "source"), resourceName, null, toUpdate, ignoredSections, UpdateOptions.defaults());
+    }
+
+    /**
+     * Constructs a job updating a file against a template.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the array of ignored section values, where each element represents the full path or the first path of the ignored section.
+     */
+    public UpdateJob(UpdateTemplate template, File toUpdate, String... ignoredSections) {
+        this(template, toUpdate, Arrays.asList(ignoredSections));
+    }
+
+    /**
+     * Constructs a job updating a file against a template.
+     *
+     * @param template        the compiled default YAML file.
+     * @param toUpdate        the file you want to update.
+     * @param ignoredSections the list of ignored section values, where each element represents the full path or the first path of the ignored section.
+     */
+    public UpdateJob(UpdateTemplate template, File toUpdate, List<String> ignoredSections) {
+        this(null, null, template, toUpdate, ignoredSections, UpdateOptions.defaults());
+    }
+
+    private UpdateJob(ResourceSource source, String resourceName, UpdateTemplate template, File toUpdate, List<String> ignoredSections, UpdateOptions options) {
+        this.source = source;
+        this.resourceName = resourceName;
+        this.template = template;
+        this.toUpdate = toUpdate;
+        this.ignoredSections = ignoredSections == null ? Collections.emptyList() : ignoredSections;
+        this.options = options;
+    }
+
+    /**
+     * Creates a copy of this job using the provided options.
+     *
+     * @param options the options used to update the file.
+     * @return the new job.
+     */
+    public UpdateJob withOptions(UpdateOptions options) {
+        return new UpdateJob(source, resourceName, template, toUpdate, ignoredSections, options);
+    }
+
+    /**
+     * Gets the file this job updates.
+     *
+     * @return the file to update.
+     */
+    public File getFile() {
+        return toUpdate;
+    }
+
+    /**
+     * Gets the sections of the file that are kept unchanged.
+     *
+     * @return the ignored sections.
+     */
+    public List<String> getIgnoredSections() {
+        return ignoredSections;
+    }
+
+    /**
+     * Gets the options used to update the file.
+     *
+     * @return the options of this job.
+     */
+    public UpdateOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Gets the template the file is updated against, if this job was constructed with one.
+     *
+     * @return the template of this job, or null if the template is read from the JAR.
+     */
+    UpdateTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Reads the YAML file this job updates against.
+     *
+     * @return the content of the resource.
+     * @throws IOException if an I/O error occurs while reading the resource.
+     */
+    byte[] readResource() throws IOException {
+        return UpdateTemplate.readResource(source, resourceName);
+    }
+
+    /**
+     * Gets the template of the YAML file this job updates against, read from its index if the source contains one.
+     *
+     * @param contentHash the hash of the resource.
+     * @param resource    the content of the resource, as returned by {@link #readResource()}.
+     * @return the template of the resource.
+     * @throws IOException if an I/O error occurs while parsing the resource.
+     */
+    UpdateTemplate getTemplate(String contentHash, byte[] resource) throws IOException {
+        return UpdateTemplate.of(contentHash, resource, source, resourceName);
+    }
+}
@@ -0,0 +1,21 @@
+package com.tchristofferson.configupdater;
+
+/**
+ * Receives the metrics of updates, for example to find out which files slow down startup.
+ * <p>
+ * Listeners are called on the thread that updated the file, after the update completed. Updates failing with an
+ * exception aren't reported. An exception thrown by a listener is logged and doesn't fail the update.
+ *
+ * @see ConfigUpdater#addListener(UpdateListener)
+ * @see UpdateOptions#withListener(UpdateListener)
+ */
+@FunctionalInterface
+public interface UpdateListener {
+
+    /**
+     * Called after a file was updated.
+     *
+     * @param metrics the metrics of the update.
+     */
+    void onUpdate(UpdateMetrics metrics);
+}
@@ -0,0 +1,181 @@
+package com.tchristofferson.configupdater;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The time spent in each phase of a single update, and the sizes it dealt with. Times are in nanoseconds, phases that
+ * didn't run, like compiling a template that was cached, took 0 nanoseconds.
+ */
+public final class UpdateMetrics {
+
+    private final File file;
+    long resourceLoadNanos;
+    long currentLoadNanos;
+    long templateNanos;
+    long ignoredSectionsNanos;
+    long writeNanos;
+    long diskWriteNanos;
+    int keyCount;
+    int ignoredSectionCount;
+    long bytesRead;
+    long bytesWritten;
+    boolean written;
+    boolean fingerprintMatched;
+    boolean layoutMatched;
+    //The hash of the content the file was written with, only known if it was asked for
+    String contentHash;
+
+    UpdateMetrics(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Gets the file that was updated.
+     *
+     * @return the updated file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the time spent reading and hashing the default YAML file inside the JAR.
+     *
+     * @return the time in nanoseconds, 0 if the update used a template.
+     */
+    public long getResourceLoadNanos() {
+        return resourceLoadNanos;
+    }
+
+    /**
+     * Gets the time spent reading and loading the file to update.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getCurrentLoadNanos() {
+        return currentLoadNanos;
+    }
+
+    /**
+     * Gets the time spent compiling the template of the default YAML file, which includes parsing its comments.
+     *
+     * @return the time in nanoseconds, close to 0 if the template was cached.
+     */
+    public long getTemplateNanos() {
+        return templateNanos;
+    }
+
+    /**
+     * Gets the time spent building the content of the ignored sections.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getIgnoredSectionsNanos() {
+        return ignoredSectionsNanos;
+    }
+
+    /**
+     * Gets the time spent writing the updated content. The updated content is compared with the current content while
+     * it's written, so this includes the comparison.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * Gets the time spent replacing the file on disk with the updated content.
+     *
+     * @return the time in nanoseconds, close to 0 if the file wasn't written.
+     */
+    public long getDiskWriteNanos() {
+        return diskWriteNanos;
+    }
+
+    /**
+     * Gets the total time of all phases.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return resourceLoadNanos + currentLoadNanos + templateNanos + ignoredSectionsNanos + writeNanos + diskWriteNanos;
+    }
+
+    /**
+     * Gets the amount of keys in the default YAML file, including the keys of sections.
+     *
+     * @return the amount of keys, 0 if the fingerprint matched before the template was loaded.
+     */
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Gets the amount of ignored sections of the update.
+     *
+     * @return the amount of ignored sections.
+     */
+    public int getIgnoredSectionCount() {
+        return ignoredSectionCount;
+    }
+
+    /**
+     * Gets the amount of bytes read from the file to update and the default YAML file.
+     *
+     * @return the amount of bytes read.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Gets the amount of bytes written to disk.
+     *
+     * @return the amount of bytes written, 0 if the file wasn't written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Checks if the file was written.
+     *
+     * @return true if new content was written to the file; otherwise, false.
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * Checks if the update was skipped because its fingerprint matched.
+     *
+     * @return true if the fingerprint matched; otherwise, false.
+     * @see UpdateOptions#withFingerprint(boolean)
+     */
+    public boolean isFingerprintMatched() {
+        return fingerprintMatched;
+    }
+
+    /**
+     * Checks if the update was skipped because the file already had the keys and layout of the default file, so it
+     * was neither written nor serialized.
+     *
+     * @return true if the file already matched the default file; otherwise, false.
+     * @see ConfigUpdater#needsUpdate(UpdateTemplate, File, List)
+     */
+    public boolean isLayoutMatched() {
+        return layoutMatched;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateMetrics{file=" + file + ", totalNanos=" + getTotalNanos() + ", resourceLoadNanos=" + resourceLoadNanos
+                + ", currentLoadNanos=" + currentLoadNanos + ", templateNanos=" + templateNanos
+                + ", ignoredSectionsNanos=" + ignoredSectionsNanos + ", writeNanos=" + writeNanos
+                + ", diskWriteNanos=" + diskWriteNanos + ", keyCount=" + keyCount + ", ignoredSectionCount=" + ignoredSectionCount
+                + ", bytesRead=" + bytesRead + ", bytesWritten=" + bytesWritten + ", written=" + written
+                + ", fingerprintMatched=" + fingerprintMatched + ", layoutMatched=" + layoutMatched + "}";
+    }
+}
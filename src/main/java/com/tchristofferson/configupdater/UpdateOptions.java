@@ -0,0 +1,139 @@
+package com.tchristofferson.configupdater;
+
+/**
+ * Options changing how a file is updated. Options are immutable, each {@code with} method returns a copy
+ * with one option changed. All options are disabled by default.
+ */
+public final class UpdateOptions {
+
+    private static final UpdateOptions DEFAULTS = new UpdateOptions();
+
+    private boolean fingerprint;
+    private boolean streaming;
+    private boolean fileLock;
+    private UpdateListener listener;
+
+    private UpdateOptions() {
+    }
+
+    private UpdateOptions(UpdateOptions options) {
+        this.fingerprint = options.fingerprint;
+        this.streaming = options.streaming;
+        this.fileLock = options.fileLock;
+        this.listener = options.listener;
+    }
+
+    /**
+     * Gets the default options.
+     *
+     * @return the options with every option disabled.
+     */
+    public static UpdateOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Sets whether a fingerprint of the update is stored next to the updated file. The fingerprint holds hashes of the
+     * default YAML file and of the written file, along with the ignored sections. When none of them changed since the
+     * last update, the next update returns without parsing or writing anything.
+     * <p>
+     * The fingerprint is stored in a hidden file named after the updated file, for example {@code .config.yml.fingerprint}.
+     *
+     * @param fingerprint true to skip updates that wouldn't change anything using a fingerprint.
+     * @return a copy of these options with the fingerprint option changed.
+     */
+    public UpdateOptions withFingerprint(boolean fingerprint) {
+        UpdateOptions options = new UpdateOptions(this);
+        options.fingerprint = fingerprint;
+        return options;
+    }
+
+    /**
+     * Checks if a fingerprint is used to skip updates that wouldn't change anything.
+     *
+     * @return true if a fingerprint is used; otherwise, false.
+     */
+    public boolean isFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Sets whether the file to update is read as a stream of YAML events instead of being loaded at once. Only the values
+     * of the keys inside the default YAML file are kept in memory, so very large files, like databases where most of the
+     * content is dropped, can be updated with little heap.
+     * <p>
+     * Memory is only bounded for files without ignored sections. Ignored sections are copied from the lines of the file,
+     * so a file with ignored sections is loaded at once and needs as much heap as without streaming, however large the
+     * ignored sections are.
+     * <p>
+     * The result is the same as without streaming. Files using YAML features the stream can't follow, like aliases,
+     * merge keys or keys that aren't strings or integers, are loaded at once as usual.
+     *
+     * @param streaming true to read the file to update as a stream.
+     * @return a copy of these options with the streaming option changed.
+     */
+    public UpdateOptions withStreaming(boolean streaming) {
+        UpdateOptions options = new UpdateOptions(this);
+        options.streaming = streaming;
+        return options;
+    }
+
+    /**
+     * Checks if the file to update is read as a stream.
+     *
+     * @return true if the file is read as a stream; otherwise, false.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Sets whether the file is locked across processes while it's updated, for servers sharing a config directory, for
+     * example over NFS. The lock is held on a hidden file named after the updated file, for example {@code .config.yml.lock},
+     * which is left in place after the update.
+     * <p>
+     * Updates of the same file through this copy of the library always wait for each other. Plugins shading and relocating
+     * the library each have their own copy, so this option is also needed when other plugins may update the file at the
+     * same time, their updates then wait for each other too. Whether the lock is respected over a network file system
+     * depends on its locking support.
+     *
+     * @param fileLock true to lock the file across processes while it's updated.
+     * @return a copy of these options with the file lock option changed.
+     */
+    public UpdateOptions withFileLock(boolean fileLock) {
+        UpdateOptions options = new UpdateOptions(this);
+        options.fileLock = fileLock;
+        return options;
+    }
+
+    /**
+     * Checks if the file is locked across processes while it's updated.
+     *
+     * @return true if the file is locked across processes; otherwise, false.
+     */
+    public boolean isFileLock() {
+        return fileLock;
+    }
+
+    /**
+     * Sets a listener receiving the metrics of updates using these options, in addition to the listeners added with
+     * {@link ConfigUpdater#addListener(UpdateListener)}.
+     *
+     * @param listener the listener, or null to not report metrics to a listener of these options.
+     * @return a copy of these options with the listener changed.
+     */
+    public UpdateOptions withListener(UpdateListener listener) {
+        UpdateOptions options = new UpdateOptions(this);
+        options.listener = listener;
+        return options;
+    }
+
+    /**
+     * Gets the listener receiving the metrics of updates using these options.
+     *
+     * @return the listener, or null if there is none.
+     */
+    public UpdateListener getListener() {
+        return listener;
+    }
+}
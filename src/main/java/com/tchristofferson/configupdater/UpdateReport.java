@@ -0,0 +1,80 @@
+package com.tchristofferson.configupdater;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of patching a file, listing the keys that were added and removed.
+ *
+ * @see ConfigUpdater#patch(UpdateTemplate, File, List)
+ */
+public final class UpdateReport {
+
+    private final File file;
+    private final boolean written;
+    private final boolean patched;
+    private final List<String> addedKeys;
+    private final List<String> removedKeys;
+
+    UpdateReport(File file, boolean written, boolean patched, List<String> addedKeys, List<String> removedKeys) {
+        this.file = file;
+        this.written = written;
+        this.patched = patched;
+        this.addedKeys = Collections.unmodifiableList(addedKeys);
+        this.removedKeys = Collections.unmodifiableList(removedKeys);
+    }
+
+    /**
+     * Gets the file that was patched.
+     *
+     * @return the patched file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Checks if the file was changed on disk. Files without added or removed keys are not written.
+     *
+     * @return true if new content was written to the file; otherwise, false.
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * Checks if only the lines of the added and removed keys were changed. If the lines of the keys couldn't be found
+     * reliably, for example because the file uses flow style sections, the whole file was written like
+     * {@link ConfigUpdater#update(UpdateTemplate, File, List)} does instead.
+     *
+     * @return true if the file was patched in place; false if it was rewritten.
+     */
+    public boolean isPatched() {
+        return patched;
+    }
+
+    /**
+     * Gets the keys that were added, including the keys inside added sections.
+     *
+     * @return an unmodifiable list of the added full keys, in the order they are written.
+     */
+    public List<String> getAddedKeys() {
+        return addedKeys;
+    }
+
+    /**
+     * Gets the keys that were removed, including the keys inside removed sections.
+     *
+     * @return an unmodifiable list of the removed full keys, in the order they were written.
+     */
+    public List<String> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateReport{file=" + file + ", written=" + written + ", patched=" + patched
+                + ", addedKeys=" + addedKeys + ", removedKeys=" + removedKeys + "}";
+    }
+}
@@ -0,0 +1,79 @@
+package com.tchristofferson.configupdater;
+
+import java.io.File;
+
+/**
+ * The outcome of updating a single file.
+ */
+public final class UpdateResult {
+
+    private final File file;
+    private final boolean written;
+    private final Throwable error;
+    private final String contentHash;
+
+    private UpdateResult(File file, boolean written, Throwable error, String contentHash) {
+        this.file = file;
+        this.written = written;
+        this.error = error;
+        this.contentHash = contentHash;
+    }
+
+    static UpdateResult success(File file, boolean written, String contentHash) {
+        return new UpdateResult(file, written, null, contentHash);
+    }
+
+    static UpdateResult failure(File file, Throwable error) {
+        return new UpdateResult(file, false, error, null);
+    }
+
+    /**
+     * Gets the file that was updated.
+     *
+     * @return the updated file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Checks if the update completed without an error.
+     *
+     * @return true if the update succeeded; otherwise, false.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Checks if the file was changed on disk. Files that already match the default YAML file are not written.
+     *
+     * @return true if new content was written to the file; otherwise, false.
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * Gets the error the update failed with.
+     *
+     * @return the error, or null if the update succeeded.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Gets the hash of the content the file was written with, if the update was run to hash it.
+     *
+     * @return the hex encoded SHA-256 hash of the written content, or null if the file wasn't written or not hashed.
+     */
+    String getContentHash() {
+        return contentHash;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateResult{file=" + file + ", written=" + written + ", error=" + error + "}";
+    }
+}
@@ -0,0 +1,191 @@
+package com.tchristofferson.configupdater;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A listener aggregating the metrics of updates, which can be registered as an MBean to inspect them with JMX tools
+ * like JConsole:
+ * <pre>
+ * UpdateStatistics statistics = new UpdateStatistics();
+ * ConfigUpdater.addListener(statistics);
+ * statistics.registerMBean(plugin.getName());
+ * </pre>
+ */
+public final class UpdateStatistics implements UpdateListener, UpdateStatisticsMXBean {
+
+    private static final int HISTOGRAM_BUCKETS = 16;
+    private static final int PHASES = 6;
+
+    private final LongAdder updateCount = new LongAdder();
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder fingerprintMatchCount = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(PHASES);
+    private final AtomicLongArray timeHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private String slowestFile;
+    private long slowestNanos;
+    private ObjectName objectName;
+
+    @Override
+    public void onUpdate(UpdateMetrics metrics) {
+        long totalNanos = metrics.getTotalNanos();
+
+        updateCount.increment();
+
+        if (metrics.isWritten())
+            writeCount.increment();
+
+        if (metrics.isFingerprintMatched())
+            fingerprintMatchCount.increment();
+
+        bytesRead.add(metrics.getBytesRead());
+        bytesWritten.add(metrics.getBytesWritten());
+        phaseNanos.addAndGet(0, metrics.getResourceLoadNanos());
+        phaseNanos.addAndGet(1, metrics.getCurrentLoadNanos());
+        phaseNanos.addAndGet(2, metrics.getTemplateNanos());
+        phaseNanos.addAndGet(3, metrics.getIgnoredSectionsNanos());
+        phaseNanos.addAndGet(4, metrics.getWriteNanos());
+        phaseNanos.addAndGet(5, metrics.getDiskWriteNanos());
+        timeHistogram.incrementAndGet(getBucket(totalNanos));
+
+        synchronized (this) {
+            if (totalNanos > slowestNanos) {
+                slowestNanos = totalNanos;
+                slowestFile = metrics.getFile().getPath();
+            }
+        }
+    }
+
+    /**
+     * Registers these statistics with the platform MBean server.
+     *
+     * @param name the name the statistics are registered with, for example the name of the plugin.
+     * @return the name of the MBean.
+     * @throws JMException if the MBean can't be registered, for example because the name is already used.
+     */
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.tchristofferson.configupdater:type=UpdateStatistics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.objectName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Unregisters these statistics from the platform MBean server, if they were registered.
+     *
+     * @throws JMException if the MBean can't be unregistered.
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName == null)
+            return;
+
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        objectName = null;
+    }
+
+    @Override
+    public long getUpdateCount() {
+        return updateCount.sum();
+    }
+
+    @Override
+    public long getWriteCount() {
+        return writeCount.sum();
+    }
+
+    @Override
+    public long getFingerprintMatchCount() {
+        return fingerprintMatchCount.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        long totalNanos = 0;
+
+        for (int i = 0; i < PHASES; i++) {
+            totalNanos += phaseNanos.get(i);
+        }
+
+        return totalNanos;
+    }
+
+    @Override
+    public long[] getPhaseNanos() {
+        return toArray(phaseNanos);
+    }
+
+    @Override
+    public long[] getTimeHistogram() {
+        return toArray(timeHistogram);
+    }
+
+    @Override
+    public synchronized String getSlowestFile() {
+        return slowestFile;
+    }
+
+    @Override
+    public synchronized long getSlowestNanos() {
+        return slowestNanos;
+    }
+
+    @Override
+    public void reset() {
+        updateCount.reset();
+        writeCount.reset();
+        fingerprintMatchCount.reset();
+        bytesRead.reset();
+        bytesWritten.reset();
+
+        for (int i = 0; i < PHASES; i++) {
+            phaseNanos.set(i, 0);
+        }
+
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            timeHistogram.set(i, 0);
+        }
+
+        synchronized (this) {
+            slowestFile = null;
+            slowestNanos = 0;
+        }
+    }
+
+    /**
+     * Gets the histogram bucket of a time, bucket 0 is below 1ms, bucket 1 below 2ms, bucket 2 below 4ms and so on.
+     *
+     * @param nanos the time in nanoseconds.
+     * @return the index of the bucket.
+     */
+    private static int getBucket(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        long[] values = new long[array.length()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i);
+        }
+
+        return values;
+    }
+}
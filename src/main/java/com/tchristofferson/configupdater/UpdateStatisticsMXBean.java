@@ -0,0 +1,85 @@
+package com.tchristofferson.configupdater;
+
+/**
+ * The management interface of {@link UpdateStatistics}, exposing the aggregated metrics of updates over JMX.
+ */
+public interface UpdateStatisticsMXBean {
+
+    /**
+     * Gets the amount of updates.
+     *
+     * @return the amount of updates, including the updates that didn't write their file.
+     */
+    long getUpdateCount();
+
+    /**
+     * Gets the amount of updates that wrote their file.
+     *
+     * @return the amount of written files.
+     */
+    long getWriteCount();
+
+    /**
+     * Gets the amount of updates skipped because their fingerprint matched.
+     *
+     * @return the amount of skipped updates.
+     */
+    long getFingerprintMatchCount();
+
+    /**
+     * Gets the amount of bytes read by all updates.
+     *
+     * @return the amount of bytes read.
+     */
+    long getBytesRead();
+
+    /**
+     * Gets the amount of bytes written by all updates.
+     *
+     * @return the amount of bytes written.
+     */
+    long getBytesWritten();
+
+    /**
+     * Gets the total time of all updates.
+     *
+     * @return the time in nanoseconds.
+     */
+    long getTotalNanos();
+
+    /**
+     * Gets the total time of each phase of all updates, in the order resource load, current file load, template,
+     * ignored sections, write and disk write.
+     *
+     * @return the times in nanoseconds.
+     */
+    long[] getPhaseNanos();
+
+    /**
+     * Gets the amount of updates by their total time. The first bucket counts updates taking less than a millisecond,
+     * each following bucket counts updates taking up to twice as long as the previous one, and the last bucket counts
+     * all slower updates.
+     *
+     * @return the amount of updates in each bucket.
+     */
+    long[] getTimeHistogram();
+
+    /**
+     * Gets the file of the slowest update.
+     *
+     * @return the path of the file, or null if nothing was updated.
+     */
+    String getSlowestFile();
+
+    /**
+     * Gets the total time of the slowest update.
+     *
+     * @return the time in nanoseconds.
+     */
+    long getSlowestNanos();
+
+    /**
+     * Resets all statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,474 @@
+package com.tchristofferson.configupdater;
+
+import com.google.common.base.Preconditions;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A default YAML resource compiled for updating files against it. It contains the keys in order, their indentation,
+ * whether they are sections, their default values and the comments of the resource.
+ * <p>
+ * A template is immutable, so it can be compiled once and used to update any amount of files.
+ */
+public final class UpdateTemplate {
+
+    //Templates are cached by the hash of their resource content, so reloading an unchanged resource doesn't compile it again
+    private static final int CACHE_SIZE = 64;
+    private static final Map<String, UpdateTemplate> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, UpdateTemplate>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UpdateTemplate> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    private final String contentHash;
+    private final String content;
+    private final List<String> keys;
+    private final Map<String, Integer> keyOrdinals;
+    private final KeyPath[] paths;
+    private final boolean[] sections;
+    private final boolean[] emptySections;
+    //Default values of the keys that aren't sections, loaded when first needed if the template was read from an index
+    private volatile Object[] defaultValues;
+    //Comments are read from the content when they are written, instead of being copied into a string per key
+    private final CommentSpans comments;
+
+    private UpdateTemplate(String contentHash, String content) throws IOException {
+        FileConfiguration defaultConfig = YamlConfiguration.loadConfiguration(new StringReader(content));
+        Set<String> keySet = defaultConfig.getKeys(true);
+        int size = keySet.size();
+
+        this.contentHash = contentHash;
+        this.content = content;
+        this.keys = Collections.unmodifiableList(new ArrayList<>(keySet));
+        this.keyOrdinals = ConfigUpdater.getKeyOrdinals(keys);
+        this.paths = toPaths(keys, keyOrdinals);
+        this.sections = new boolean[size];
+        this.emptySections = new boolean[size];
+        Object[] defaultValues = new Object[size];
+
+        for (int i = 0; i < size; i++) {
+            Object value = defaultConfig.get(keys.get(i));
+
+            if (value instanceof ConfigurationSection) {
+                sections[i] = true;
+                emptySections[i] = ((ConfigurationSection) value).getKeys(false).isEmpty();
+            } else {
+                defaultValues[i] = value;
+            }
+        }
+
+        this.defaultValues = defaultValues;
+        this.comments = CommentSpans.parse(content, keyOrdinals);
+    }
+
+    private UpdateTemplate(String contentHash, String content, List<String> keys, boolean[] sections, boolean[] emptySections, DataInput comments) throws IOException {
+        this.contentHash = contentHash;
+        this.content = content;
+        this.keys = Collections.unmodifiableList(keys);
+        this.keyOrdinals = ConfigUpdater.getKeyOrdinals(keys);
+        this.paths = toPaths(keys, keyOrdinals);
+        this.sections = sections;
+        this.emptySections = emptySections;
+        this.comments = CommentSpans.read(comments, content, keys.size());
+    }
+
+    /**
+     * Creates a template from the structure stored in an index, without parsing the content. The default values are
+     * only loaded from the content when first needed.
+     *
+     * @param contentHash   the hash of the content.
+     * @param content       the YAML content the index was built from.
+     * @param keys          the full keys in order.
+     * @param sections      whether each key is a section.
+     * @param emptySections whether each key is a section without keys.
+     * @param comments      the input to read the comment spans from.
+     * @return the template.
+     * @throws IOException if an I/O error occurs while reading the comment spans, or if they don't fit the content.
+     */
+    static UpdateTemplate of(String contentHash, String content, List<String> keys, boolean[] sections, boolean[] emptySections, DataInput comments) throws IOException {
+        return new UpdateTemplate(contentHash, content, keys, sections, emptySections, comments);
+    }
+
+    private static KeyPath[] toPaths(List<String> keys, Map<String, Integer> keyOrdinals) {
+        KeyPath[] paths = new KeyPath[keys.size()];
+
+        for (int i = 0; i < paths.length; i++) {
+            String key = keys.get(i);
+            int separatorIndex = key.lastIndexOf(ConfigUpdater.SEPARATOR);
+            //Parents come before their keys, so the path of the parent is already known
+            KeyPath parent = separatorIndex == -1 ? null : paths[keyOrdinals.get(key.substring(0, separatorIndex))];
+
+            paths[i] = KeyPath.of(parent, key.substring(separatorIndex + 1), ConfigUpdater.SEPARATOR);
+        }
+
+        return paths;
+    }
+
+    /**
+     * Gets the template of a YAML resource inside the JAR. The resource is compiled only if no template of the same
+     * content was used recently.
+     *
+     * @param plugin       the main class instance where you extend JavaPlugin.
+     * @param resourceName the path to your original YAML file inside the JAR.
+     * @return the template of the resource.
+     * @throws IOException if an I/O error occurs while reading the resource.
+     * @throws IllegalArgumentException if the resource doesn't exist.
+     */
+    public static UpdateTemplate of(Plugin plugin, String resourceName) throws IOException {
+        return of(ResourceSource.of(plugin), resourceName);
+    }
+
+    /**
+     * Gets the template of a YAML resource. The resource is compiled only if no template of the same content was used recently.
+     *
+     * @param source       where the resource is read from.
+     * @param resourceName the path to your original YAML file inside the source.
+     * @return the template of the resource.
+     * @throws IOException if an I/O error occurs while reading the resource.
+     * @throws IllegalArgumentException if the resource doesn't exist.
+     */
+    public static UpdateTemplate of(ResourceSource source, String resourceName) throws IOException {
+        byte[] content = readResource(source, resourceName);
+        return of(hash(content), content, source, resourceName);
+    }
+
+    /**
+     * Gets the template of YAML content. The content is compiled only if no template of the same content was used recently.
+     *
+     * @param content the UTF-8 encoded YAML content.
+     * @return the template of the content.
+     * @throws IOException if an I/O error occurs while parsing the content.
+     */
+    public static UpdateTemplate of(byte[] content) throws IOException {
+        return of(hash(content), content);
+    }
+
+    /**
+     * Gets the template of YAML content with an already computed hash.
+     *
+     * @param contentHash the hash of the content, as returned by {@link #hash(byte[])}.
+     * @param content     the UTF-8 encoded YAML content.
+     * @return the template of the content.
+     * @throws IOException if an I/O error occurs while parsing the content.
+     */
+    static UpdateTemplate of(String contentHash, byte[] content) throws IOException {
+        return of(contentHash, content, null, null);
+    }
+
+    /**
+     * Gets the template of a YAML resource with an already computed hash. If the source contains an index of the
+     * resource built for the same content, the template is read from the index instead of compiling the content.
+     *
+     * @param contentHash  the hash of the content, as returned by {@link #hash(byte[])}.
+     * @param content      the UTF-8 encoded YAML content.
+     * @param source       where the resource was read from, or null to always compile the content.
+     * @param resourceName the path of the resource inside the source.
+     * @return the template of the content.
+     * @throws IOException if an I/O error occurs while parsing the content.
+     */
+    static UpdateTemplate of(String contentHash, byte[] content, ResourceSource source, String resourceName) throws IOException {
+        UpdateTemplate template = CACHE.get(contentHash);
+
+        if (template == null) {
+            String decodedContent = new String(content, StandardCharsets.UTF_8);
+
+            if (source != null)
+                template = TemplateIndex.read(source, resourceName, contentHash, decodedContent);
+
+            if (template == null)
+                template = new UpdateTemplate(contentHash, decodedContent);
+
+            CACHE.put(contentHash, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Gets the cached template of content, without compiling it.
+     *
+     * @param contentHash the hash of the content, as returned by {@link #hash(byte[])}.
+     * @return the template of the content, or null if it isn't cached.
+     */
+    static UpdateTemplate getCached(String contentHash) {
+        return CACHE.get(contentHash);
+    }
+
+    /**
+     * Compiles YAML content into a new template, without using the cache.
+     *
+     * @param content the YAML content.
+     * @return the compiled template.
+     * @throws IOException if an I/O error occurs while parsing the content.
+     */
+    public static UpdateTemplate compile(String content) throws IOException {
+        return new UpdateTemplate(hash(content.getBytes(StandardCharsets.UTF_8)), content);
+    }
+
+    /**
+     * Removes all cached templates.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Gets the hash of the content this template was compiled from.
+     *
+     * @return the hex encoded SHA-256 hash of the UTF-8 encoded content.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Gets all keys of the template, including the keys of sections, in the order they are written.
+     *
+     * @return an unmodifiable list of the full keys.
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Checks if the key is a configuration section in the template.
+     *
+     * @param key the full key to check.
+     * @return true if the key is a section; false if it's a value or isn't in the template.
+     */
+    public boolean isSection(String key) {
+        Integer ordinal = keyOrdinals.get(key);
+        return ordinal != null && sections[ordinal];
+    }
+
+    /**
+     * Gets the indentation the key is written with.
+     *
+     * @param key the full key to get the indentation of.
+     * @return the indentation spaces, or null if the key isn't in the template.
+     */
+    public String getIndents(String key) {
+        Integer ordinal = keyOrdinals.get(key);
+        return ordinal == null ? null : paths[ordinal].getIndents();
+    }
+
+    /**
+     * Gets the comments of the template, which are written above their key. The comments aren't kept as strings,
+     * so the map is created on each call.
+     *
+     * @return an unmodifiable map of full keys to their comments. Keys without comments aren't included.
+     */
+    public Map<String, String> getComments() {
+        Map<String, String> comments = new LinkedHashMap<>();
+
+        for (int i = 0; i < keys.size(); i++) {
+            String comment = this.comments.get(i);
+
+            if (comment != null)
+                comments.put(keys.get(i), comment);
+        }
+
+        return Collections.unmodifiableMap(comments);
+    }
+
+    /**
+     * Gets the comments after the last key of the template.
+     *
+     * @return the dangling comments, or null if there are none.
+     */
+    public String getDanglingComments() {
+        return comments.getDangling();
+    }
+
+    String getComment(String key) {
+        Integer ordinal = keyOrdinals.get(key);
+        return ordinal == null ? null : comments.get(ordinal);
+    }
+
+    void writeComment(int ordinal, IndentingWriter writer) throws IOException {
+        comments.write(ordinal, writer);
+    }
+
+    void writeDanglingComments(IndentingWriter writer) throws IOException {
+        comments.writeDangling(writer);
+    }
+
+    boolean contains(String key) {
+        return keyOrdinals.containsKey(key);
+    }
+
+    int getOrdinal(String key) {
+        return keyOrdinals.get(key);
+    }
+
+    int size() {
+        return paths.length;
+    }
+
+    KeyPath getPath(int ordinal) {
+        return paths[ordinal];
+    }
+
+    String getTrailingKey(int ordinal) {
+        return paths[ordinal].getLastSegment();
+    }
+
+    int getLevel(int ordinal) {
+        return paths[ordinal].getDepth() - 1;
+    }
+
+    boolean isSection(int ordinal) {
+        return sections[ordinal];
+    }
+
+    boolean isEmptySection(int ordinal) {
+        return emptySections[ordinal];
+    }
+
+    Object getDefaultValue(int ordinal) {
+        Object[] defaultValues = this.defaultValues;
+
+        //Loading the same values twice when updates race is harmless, the values are the same
+        if (defaultValues == null)
+            this.defaultValues = defaultValues = loadDefaultValues();
+
+        return defaultValues[ordinal];
+    }
+
+    private Object[] loadDefaultValues() {
+        FileConfiguration defaultConfig = YamlConfiguration.loadConfiguration(new StringReader(content));
+        Object[] defaultValues = new Object[keys.size()];
+
+        for (int i = 0; i < defaultValues.length; i++) {
+            if (!sections[i])
+                defaultValues[i] = defaultConfig.get(keys.get(i));
+        }
+
+        return defaultValues;
+    }
+
+    /**
+     * Writes the comment spans of the template for an index.
+     *
+     * @param out the output to write the spans to.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    void writeComments(DataOutput out) throws IOException {
+        comments.write(out);
+    }
+
+    /**
+     * Reads a YAML resource file.
+     *
+     * @param source       where the resource is read from.
+     * @param resourceName the path to your original YAML file inside the JAR.
+     * @return the content of the resource.
+     * @throws IOException if an I/O error occurs while reading the resource.
+     * @throws IllegalArgumentException if the resource doesn't exist.
+     */
+    static byte[] readResource(ResourceSource source, String resourceName) throws IOException {
+        InputStream resource = source.open(resourceName);
+        Preconditions.checkArgument(resource != null, "The resource " + resourceName + " doesn't exist!");
+
+        try (InputStream in = resource) {
+            return readFully(in);
+        }
+    }
+
+    /**
+     * Reads the remaining content of a stream, without closing it.
+     *
+     * @param in the stream to read.
+     * @return the content read.
+     * @throws IOException if an I/O error occurs while reading.
+     */
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Hashes content the same way the cache and the content hash of templates do.
+     *
+     * @param content the content to hash.
+     * @return the hex encoded SHA-256 hash of the content.
+     */
+    static String hash(byte[] content) {
+        return toHex(newDigest().digest(content));
+    }
+
+    /**
+     * Hashes the content of a file without reading it into memory at once.
+     *
+     * @param file the file to hash.
+     * @return the hex encoded SHA-256 hash of the content of the file.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Creates the digest content is hashed with.
+     *
+     * @return a new SHA-256 digest.
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encodes a hash as a lower case hex string.
+     *
+     * @param hash the hash to encode.
+     * @return the hex encoded hash.
+     */
+    static String toHex(byte[] hash) {
+        StringBuilder builder = new StringBuilder(hash.length * 2);
+
+        for (byte b : hash) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return builder.toString();
+    }
+}
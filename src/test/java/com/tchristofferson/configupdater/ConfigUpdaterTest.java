@@ -6,6 +6,7 @@ import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.Plugin;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -14,12 +15,29 @@ import org.mockito.stubbing.Answer;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.eq;
@@ -107,6 +125,24 @@ public class ConfigUpdaterTest {
         assertTrue(section.getKeys(false).isEmpty());
     }
 
+    @Test
+    public void testIgnoredSectionLinesAreCopiedUnchanged() throws IOException {
+        UpdateTemplate template = UpdateTemplate.compile("settings:\n  shops: {}\n  enabled: true\n");
+        File toUpdate = new File("copied-ignored.yml");
+        String shops = "    shops:\n        #The user's own comment\n        \"1\":\n            price: 5.0\n            name: 'Shop'\n        tools: [pickaxe, \"axe\"]\n";
+        Files.write(toUpdate.toPath(), ("settings:\r\n" + shops.replace("\n", "\r\n")).getBytes(StandardCharsets.UTF_8));
+
+        try {
+            ConfigUpdater.update(template, toUpdate, "settings.shops");
+            String updated = new String(Files.readAllBytes(toUpdate.toPath()), StandardCharsets.UTF_8);
+
+            //Only moved to the indentation of the section, the formatting of the values is kept
+            assertEquals("settings:\n" + shops.replace("\n    ", "\n  ").substring(2) + "  enabled: true\n", updated);
+        } finally {
+            Files.deleteIfExists(toUpdate.toPath());
+        }
+    }
+
     @Test
     public void testDefaultIgnoredEmptySectionWithKeysInConfigIsSameAfterUpdate() throws IOException {
         File toUpdate = new File(FILE_NAME);
@@ -139,6 +175,507 @@ public class ConfigUpdaterTest {
         assertNotNull(config.get("Chat2.Emoji.Emojis.:rage:"));
     }
 
+    @Test
+    public void testIgnoredSectionsWithNumberKeys() throws IOException, URISyntaxException {
+        File toUpdate = new File(FILE_NAME);
+        String preUpdateContent = new String(Files.readAllBytes(getResourcePath()), StandardCharsets.UTF_8).replace("\r\n", "\n");
+
+        //SnakeYAML loads the keys of section2 as integers
+        ConfigUpdater.update(plugin, FILE_NAME, toUpdate, "section2.1", "section2.2");
+        String postUpdateContent = new String(Files.readAllBytes(toUpdate.toPath()), StandardCharsets.UTF_8).trim();
+
+        assertEquals(preUpdateContent.trim(), postUpdateContent);
+    }
+
+    @Test
+    public void testPatchOnlyChangesAddedAndRemovedKeys() throws IOException {
+        File toUpdate = new File(FILE_NAME);
+        String content = new String(Files.readAllBytes(toUpdate.toPath()), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        int keyListStart = content.indexOf("#key-list comment");
+        int keyListEnd = content.indexOf("- item \"4\" test's\n") + "- item \"4\" test's\n".length();
+        String customLine = "  seckey1:   'seckey1 value'   # changed by a user";
+
+        //Remove key-list, add an obsolete section and format an existing value differently than the updater would
+        content = content.substring(0, keyListStart) + content.substring(keyListEnd);
+        content = content.replace("  seckey1: seckey1 value", customLine).replace("section2:\n", "obsolete:\n  nested: 1\nsection2:\n");
+        Files.write(toUpdate.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        UpdateReport report = ConfigUpdater.patch(plugin, FILE_NAME, toUpdate, ignoredSections);
+        String patchedContent = new String(Files.readAllBytes(toUpdate.toPath()), StandardCharsets.UTF_8);
+        FileConfiguration patchedConfig = YamlConfiguration.loadConfiguration(toUpdate);
+
+        assertTrue(report.isWritten());
+        assertTrue(report.isPatched());
+        assertEquals(Arrays.asList("key-list"), report.getAddedKeys());
+        assertEquals(Arrays.asList("obsolete", "obsolete.nested"), report.getRemovedKeys());
+        assertTrue(patchedContent.contains(customLine + "\n"));
+        assertTrue(patchedContent.contains("#key-list comment\nkey-list:\n- item 0\n"));
+        assertEquals(5, patchedConfig.getStringList("key-list").size());
+        assertFalse(patchedConfig.contains("obsolete"));
+
+        //Patching again finds nothing to change
+        assertFalse(ConfigUpdater.patch(plugin, FILE_NAME, toUpdate, ignoredSections).isWritten());
+    }
+
+    @Test
+    public void testClearedValueIsRestored() throws IOException {
+        File toUpdate = new File(FILE_NAME);
+        ConfigUpdater.update(plugin, FILE_NAME, toUpdate, ignoredSections);
+        String content = new String(Files.readAllBytes(toUpdate.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.contains("  seckey1: seckey1 value\n"));
+
+        //A key without a value isn't loaded by Bukkit, so the update writes its default value again
+        Files.write(toUpdate.toPath(), content.replace("  seckey1: seckey1 value\n", "  seckey1:\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(ConfigUpdater.needsUpdate(plugin, FILE_NAME, toUpdate, ignoredSections));
+
+        UpdateReport report = ConfigUpdater.patch(plugin, FILE_NAME, toUpdate, ignoredSections);
+
+        assertTrue(report.isWritten());
+        assertEquals(Collections.singletonList("section.seckey1"), report.getAddedKeys());
+        assertEquals("seckey1 value", YamlConfiguration.loadConfiguration(toUpdate).getString("section.seckey1"));
+        assertFalse(ConfigUpdater.needsUpdate(plugin, FILE_NAME, toUpdate, ignoredSections));
+    }
+
+    @Test
+    public void testParseCommentsAfterListsOfMaps() throws IOException, URISyntaxException {
+        String defaultContent = new String(Files.readAllBytes(getResourcePath()), StandardCharsets.UTF_8);
+        FileConfiguration defaultConfig = YamlConfiguration.loadConfiguration(new StringReader(defaultContent));
+        Map<String, String> comments = ConfigUpdater.parseComments(defaultContent, defaultConfig);
+
+        assertTrue(comments.get("Chat.Broadcast").contains("# You can specify broadcasts (how many you want) and\n"));
+        assertEquals("#This is a list of maps\n", comments.get("Chat2.Announcements"));
+        assertEquals("#seckey1 comment\n", comments.get("section.seckey1"));
+        assertEquals("#Ending comment\n#Second ending comment\n", comments.get(null));
+    }
+
+    @Test
+    public void testCommentsAreIndentedWhenWritten() throws IOException {
+        String defaultContent = "#root comment\r\nsection:\r\n\r\n      #nested comment   \r\n  key: value\r\n#ending\r\n";
+        UpdateTemplate template = UpdateTemplate.compile(defaultContent);
+        StringWriter writer = new StringWriter();
+        ConfigUpdater.write(template, new YamlConfiguration(), new BufferedWriter(writer), Collections.emptyMap());
+
+        assertEquals("\n#nested comment\n", template.getComments().get("section.key"));
+        assertEquals("#root comment\nsection:\n  \n  #nested comment\n  key: value\n#ending\n", writer.toString());
+    }
+
+    @Test
+    public void testKeyBuilderFollowsSections() {
+        FileConfiguration config = new YamlConfiguration();
+        config.set("key1.key2.key3", "value");
+        config.set("key1.key4", "value");
+        KeyBuilder keyBuilder = new KeyBuilder(config, '.');
+
+        keyBuilder.parseLine("key1:", true);
+        keyBuilder.parseLine("  key2:", true);
+        keyBuilder.parseLine("    key3: value", true);
+        assertEquals("key1.key2.key3", keyBuilder.toString());
+        assertEquals("key3", keyBuilder.getLastKey());
+
+        //key4 isn't inside key1.key2, so the builder goes back to key1
+        keyBuilder.parseLine("  key4: value", true);
+        assertEquals("key1.key4", keyBuilder.toString());
+
+        keyBuilder.removeLastKey();
+        keyBuilder.removeLastKey();
+        assertTrue(keyBuilder.isEmpty());
+        assertEquals("    ", KeyPath.of("key1.key2.key3", '.').getIndents());
+    }
+
+    @Test
+    public void testIndentingWriter() throws IOException {
+        assertEquals("    #First\n    \n    #Second\n", IndentingWriter.indent("#First\n\n#Second\n\n", 2));
+        assertEquals("\n", IndentingWriter.indent("\n\n", 2));
+
+        //Deeper than the shared spaces, through a buffer smaller than the lines
+        StringWriter written = new StringWriter();
+
+        try (IndentingWriter writer = new IndentingWriter(written, 4)) {
+            writer.setDepth(40);
+            writer.writeKey("key");
+            writer.write('\n');
+            writer.writeLines("- a\n- b\n", 0, 7);
+        }
+
+        String indents = new String(new char[80]).replace('\0', ' ');
+        assertEquals(indents + "key:\n" + indents + "- a\n" + indents + "- b\n", written.toString());
+    }
+
+    @Test
+    public void testUpdateManyFilesWithSameTemplate() throws IOException, URISyntaxException {
+        File toUpdate = new File(FILE_NAME);
+        File otherToUpdate = new File("other-" + FILE_NAME);
+        saveDefaultConfig(otherToUpdate);
+
+        try {
+            UpdateTemplate template = UpdateTemplate.of(plugin, DELETE_SECTION_FILE_NAME);
+            assertSame(template, UpdateTemplate.of(plugin, DELETE_SECTION_FILE_NAME));
+
+            ConfigUpdater.update(template, toUpdate, ignoredSections);
+            ConfigUpdater.update(template, otherToUpdate, ignoredSections);
+
+            assertFalse(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+            assertArrayEquals(Files.readAllBytes(toUpdate.toPath()), Files.readAllBytes(otherToUpdate.toPath()));
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            otherToUpdate.delete();
+        }
+    }
+
+    @Test
+    public void testUpdateAllCollectsErrors() throws IOException {
+        File toUpdate = new File(FILE_NAME);
+        File missing = new File("missing-" + FILE_NAME);
+        List<UpdateResult> results = ConfigUpdater.updateAll(Arrays.asList(
+                new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, missing, ignoredSections),
+                new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections)));
+
+        assertEquals(2, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).getError() instanceof IllegalArgumentException);
+        assertTrue(results.get(1).isSuccess());
+        assertTrue(results.get(1).isWritten());
+        assertFalse(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+    }
+
+    @Test
+    public void testUpdateAsyncCompletesOnCompletionExecutor() {
+        File toUpdate = new File(FILE_NAME);
+        List<Runnable> completions = new ArrayList<>();
+        CompletableFuture<UpdateResult> future = ConfigUpdater.updateAsync(new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections), Runnable::run, completions::add);
+
+        assertEquals(1, completions.size());
+        assertFalse(future.isDone());
+        completions.get(0).run();
+
+        UpdateResult result = future.join();
+        assertTrue(result.isSuccess());
+        assertTrue(result.isWritten());
+        assertFalse(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+    }
+
+    @Test
+    public void testUpdateReplacesFileWhenOutputIsShorter() throws IOException {
+        File toUpdate = new File(FILE_NAME);
+        ConfigUpdater.update(plugin, FILE_NAME, toUpdate, ignoredSections);
+        byte[] updated = Files.readAllBytes(toUpdate.toPath());
+
+        //The output matches the start of the file, only the removed key at the end differs
+        Files.write(toUpdate.toPath(), "removed-key: true\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertTrue(ConfigUpdater.updateAsync(new UpdateJob(plugin, FILE_NAME, toUpdate, ignoredSections)).join().isWritten());
+        assertArrayEquals(updated, Files.readAllBytes(toUpdate.toPath()));
+
+        File[] tempFiles = toUpdate.getAbsoluteFile().getParentFile().listFiles((dir, name) -> name.startsWith("." + FILE_NAME) && name.endsWith(".tmp"));
+        assertNotNull(tempFiles);
+        assertEquals(0, tempFiles.length);
+    }
+
+    @Test
+    public void testUpdateKeepsPermissionsAndSymbolicLink() throws IOException {
+        Path real = Paths.get("real-" + FILE_NAME);
+        Path link = Paths.get("link-" + FILE_NAME);
+        Assume.assumeNotNull(Files.getFileAttributeView(Paths.get(""), PosixFileAttributeView.class));
+
+        try {
+            Files.copy(Paths.get(FILE_NAME), real);
+            Files.setPosixFilePermissions(real, PosixFilePermissions.fromString("rw-r--r--"));
+            Files.createSymbolicLink(link, real.toAbsolutePath());
+
+            assertTrue(ConfigUpdater.updateAsync(new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, link.toFile(), ignoredSections)).join().isWritten());
+            assertTrue(Files.isSymbolicLink(link));
+            assertFalse(YamlConfiguration.loadConfiguration(real.toFile()).contains("section2"));
+            assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(real)));
+        } finally {
+            Files.deleteIfExists(link);
+            Files.deleteIfExists(real);
+        }
+    }
+
+    @Test
+    public void testWatcherUpdatesEditedFile() throws IOException, InterruptedException {
+        File toUpdate = new File(FILE_NAME);
+        Path path = toUpdate.toPath();
+        BlockingQueue<UpdateResult> results = new LinkedBlockingQueue<>();
+        //Every update the watcher runs, including those of its own writes that don't change anything
+        AtomicInteger updates = new AtomicInteger();
+        UpdateListener updateCounter = metrics -> {
+            if (metrics.getFile().getAbsoluteFile().equals(toUpdate.getAbsoluteFile()))
+                updates.incrementAndGet();
+        };
+        ConfigUpdater.addListener(updateCounter);
+
+        //Much longer than the writes take, so they always end up in the same update
+        try (ConfigUpdateWatcher watcher = new ConfigUpdateWatcher(2, TimeUnit.SECONDS, results::add)) {
+            watcher.watch(new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections));
+            Files.write(path, "obsolete-key: 1\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            Files.write(path, "other-obsolete-key: 2\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            UpdateResult result = results.poll(30, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertTrue(result.isWritten());
+            assertFalse(YamlConfiguration.loadConfiguration(toUpdate).contains("obsolete-key"));
+
+            //An edit keeping the size and last modified time of the watcher's own write is still updated
+            byte[] updated = Files.readAllBytes(path);
+            FileTime lastModified = Files.getLastModifiedTime(path);
+            Files.write(path, new String(updated, StandardCharsets.UTF_8).replace("#Top comment", "#Top cOmment").getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(path, lastModified);
+
+            result = results.poll(30, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertTrue(result.isWritten());
+            assertArrayEquals(updated, Files.readAllBytes(path));
+
+            //Longer than the debounce of the watcher's own last write, which mustn't run another update
+            assertNull(results.poll(5, TimeUnit.SECONDS));
+            assertEquals(2, updates.get());
+        } finally {
+            ConfigUpdater.removeListener(updateCounter);
+        }
+    }
+
+    @Test
+    public void testFingerprintSkipsUnchangedUpdate() throws IOException {
+        File toUpdate = new File(FILE_NAME);
+        File fingerprint = new File("." + FILE_NAME + ".fingerprint");
+        List<UpdateMetrics> reported = new ArrayList<>();
+        UpdateOptions options = UpdateOptions.defaults().withFingerprint(true).withListener(reported::add);
+
+        try {
+            ConfigUpdater.update(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections, options);
+            assertTrue(fingerprint.exists());
+            assertFalse(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+            assertFalse(reported.get(0).isFingerprintMatched());
+
+            //Updating again with the fingerprint in place returns before the file is loaded
+            byte[] updated = Files.readAllBytes(toUpdate.toPath());
+            assertFalse(ConfigUpdater.updateAsync(new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections).withOptions(options)).join().isWritten());
+            assertArrayEquals(updated, Files.readAllBytes(toUpdate.toPath()));
+            assertEquals(2, reported.size());
+            assertTrue(reported.get(1).isFingerprintMatched());
+            assertFalse(reported.get(1).isLayoutMatched());
+
+            //A different resource doesn't match the fingerprint
+            ConfigUpdater.update(plugin, FILE_NAME, toUpdate, ignoredSections, options);
+            assertTrue(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            fingerprint.delete();
+        }
+    }
+
+    @Test
+    public void testUnchangedLayoutSkipsWriting() throws IOException {
+        File toUpdate = new File(FILE_NAME);
+        List<UpdateMetrics> reported = new ArrayList<>();
+        UpdateOptions options = UpdateOptions.defaults().withListener(reported::add);
+
+        //Without cached templates, only the keys of the resources are loaded
+        UpdateTemplate.clearCache();
+        assertFalse(ConfigUpdater.needsUpdate(plugin, FILE_NAME, toUpdate, ignoredSections));
+        assertTrue(ConfigUpdater.needsUpdate(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections));
+        assertNull(UpdateTemplate.getCached(UpdateTemplate.hash(readFully(plugin.getResource(FILE_NAME)))));
+
+        ConfigUpdater.update(plugin, FILE_NAME, toUpdate, ignoredSections);
+        assertFalse(ConfigUpdater.needsUpdate(plugin, FILE_NAME, toUpdate, ignoredSections));
+        byte[] updated = Files.readAllBytes(toUpdate.toPath());
+
+        ConfigUpdater.update(plugin, FILE_NAME, toUpdate, ignoredSections, options);
+        assertTrue(reported.get(0).isLayoutMatched());
+        assertFalse(reported.get(0).isWritten());
+
+        //Removed comments don't change the keys, but are still written back
+        String withoutComments = new String(updated, StandardCharsets.UTF_8).replace("#Top second comment\n", "");
+        Files.write(toUpdate.toPath(), withoutComments.getBytes(StandardCharsets.UTF_8));
+        assertFalse(ConfigUpdater.needsUpdate(plugin, FILE_NAME, toUpdate, ignoredSections));
+        ConfigUpdater.update(plugin, FILE_NAME, toUpdate, ignoredSections, options);
+        assertFalse(reported.get(1).isLayoutMatched());
+        assertArrayEquals(updated, Files.readAllBytes(toUpdate.toPath()));
+    }
+
+    @Test
+    public void testUpdatesOfSameFileWaitForLock() throws IOException, InterruptedException {
+        File toUpdate = new File(FILE_NAME);
+        File lockFile = new File("." + FILE_NAME + ".lock");
+        UpdateJob job = new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections).withOptions(UpdateOptions.defaults().withFileLock(true));
+        CompletableFuture<UpdateResult> future;
+
+        try {
+            //A different path of the same file shares its lock
+            try (Closeable ignored = FileLocks.lock(new File(".", FILE_NAME), false)) {
+                future = ConfigUpdater.updateAsync(job);
+                Thread.sleep(200);
+                assertFalse(future.isDone());
+            }
+
+            assertTrue(future.join().isWritten());
+            assertTrue(lockFile.exists());
+            assertFalse(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+
+            //Another copy of the library inside the JVM holds the lock file, without sharing the in-JVM lock
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE); FileLock ignored = channel.lock()) {
+                future = ConfigUpdater.updateAsync(job);
+                Thread.sleep(200);
+                assertFalse(future.isDone());
+            }
+
+            assertTrue(future.join().isSuccess());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            lockFile.delete();
+        }
+    }
+
+    @Test
+    public void testFailingListenerDoesNotFailUpdate() {
+        File toUpdate = new File(FILE_NAME);
+        UpdateListener failingListener = metrics -> {
+            throw new IllegalStateException("The listener failed");
+        };
+        UpdateStatistics statistics = new UpdateStatistics();
+        ConfigUpdater.addListener(failingListener);
+        ConfigUpdater.addListener(statistics);
+
+        try {
+            UpdateJob job = new UpdateJob(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections).withOptions(UpdateOptions.defaults().withListener(failingListener));
+            UpdateResult result = ConfigUpdater.updateAsync(job).join();
+
+            assertTrue(result.isSuccess());
+            assertTrue(result.isWritten());
+            assertEquals(1, statistics.getUpdateCount());
+        } finally {
+            ConfigUpdater.removeListener(failingListener);
+            ConfigUpdater.removeListener(statistics);
+        }
+    }
+
+    @Test
+    public void testListenersReceiveUpdateMetrics() throws IOException {
+        File toUpdate = new File(FILE_NAME);
+        List<UpdateMetrics> reported = new ArrayList<>();
+        UpdateStatistics statistics = new UpdateStatistics();
+        ConfigUpdater.addListener(statistics);
+
+        try {
+            ConfigUpdater.update(plugin, DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections, UpdateOptions.defaults().withListener(reported::add));
+        } finally {
+            ConfigUpdater.removeListener(statistics);
+        }
+
+        assertEquals(1, reported.size());
+        UpdateMetrics metrics = reported.get(0);
+        assertTrue(metrics.isWritten());
+        assertTrue(metrics.getKeyCount() > 0);
+        assertEquals(Files.size(toUpdate.toPath()), metrics.getBytesWritten());
+        assertEquals(1, statistics.getUpdateCount());
+        assertEquals(1, statistics.getWriteCount());
+        assertEquals(toUpdate.getPath(), statistics.getSlowestFile());
+    }
+
+    @Test
+    public void testUpdateWithoutPluginUsesResourceSource() throws IOException, URISyntaxException {
+        File toUpdate = new File(FILE_NAME);
+        Map<String, byte[]> resources = new HashMap<>();
+        resources.put(DELETE_SECTION_FILE_NAME, Files.readAllBytes(getResourcePath().resolveSibling(DELETE_SECTION_FILE_NAME)));
+
+        UpdateResult result = ConfigUpdater.updateAsync(new UpdateJob(ResourceSource.of(resources), DELETE_SECTION_FILE_NAME, toUpdate, ignoredSections)).join();
+        assertTrue(result.isWritten());
+        assertFalse(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+
+        ResourceSource classpath = ResourceSource.classpath(ConfigUpdaterTest.class.getClassLoader());
+        assertTrue(ConfigUpdater.updateAsync(new UpdateJob(classpath, FILE_NAME, toUpdate, ignoredSections)).join().isWritten());
+        assertTrue(YamlConfiguration.loadConfiguration(toUpdate).contains("section2"));
+        assertNull(classpath.open("missing.yml"));
+    }
+
+    @Test
+    public void testTemplateIndexMatchesCompiledTemplate() throws IOException, URISyntaxException {
+        File toUpdate = new File(FILE_NAME);
+        byte[] content = Files.readAllBytes(getResourcePath());
+        UpdateTemplate compiled = UpdateTemplate.compile(new String(content, StandardCharsets.UTF_8));
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        TemplateIndex.write(compiled, index);
+
+        Map<String, byte[]> resources = new HashMap<>();
+        resources.put(FILE_NAME, content);
+        resources.put(TemplateIndex.getIndexName(FILE_NAME), index.toByteArray());
+        UpdateTemplate.clearCache();
+        UpdateTemplate indexed = UpdateTemplate.of(ResourceSource.of(resources), FILE_NAME);
+
+        assertEquals(compiled.getKeys(), indexed.getKeys());
+        assertEquals(compiled.getComments(), indexed.getComments());
+        assertEquals(compiled.getDanglingComments(), indexed.getDanglingComments());
+
+        //Default values are loaded from the resource once a key is missing
+        Files.write(toUpdate.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        ConfigUpdater.update(indexed, toUpdate);
+        String fromIndex = new String(Files.readAllBytes(toUpdate.toPath()), StandardCharsets.UTF_8);
+        Files.write(toUpdate.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        ConfigUpdater.update(compiled, toUpdate);
+        assertEquals(new String(Files.readAllBytes(toUpdate.toPath()), StandardCharsets.UTF_8), fromIndex);
+
+        //An index of different content is ignored
+        resources.put(FILE_NAME, "new-key: true\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Collections.singletonList("new-key"), UpdateTemplate.of(ResourceSource.of(resources), FILE_NAME).getKeys());
+    }
+
+    @Test
+    public void testJarResourceCacheReopensChangedJar() throws IOException, URISyntaxException {
+        File jar = new File("test-resources.jar");
+        byte[] config = Files.readAllBytes(getResourcePath());
+
+        try {
+            writeJar(jar, FILE_NAME, config);
+
+            try (JarResourceCache resources = new JarResourceCache(jar)) {
+                assertEquals(Collections.singleton(FILE_NAME), resources.getYamlResources());
+                assertArrayEquals(config, readFully(resources.open(FILE_NAME)));
+                assertNull(resources.open("missing.yml"));
+
+                //Replacing the JAR drops the cached content
+                byte[] changed = "key: value\n".getBytes(StandardCharsets.UTF_8);
+                writeJar(jar, FILE_NAME, changed);
+                assertArrayEquals(changed, readFully(resources.open(FILE_NAME)));
+            }
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            jar.delete();
+        }
+    }
+
+    @Test
+    public void testStreamingUpdateMatchesUpdate() throws IOException, URISyntaxException {
+        File toUpdate = new File(FILE_NAME);
+        File streamed = new File("streamed-" + FILE_NAME);
+        UpdateOptions streaming = UpdateOptions.defaults().withStreaming(true);
+
+        try {
+            for (String resourceName : Arrays.asList(FILE_NAME, DELETE_SECTION_FILE_NAME)) {
+                saveDefaultConfig(toUpdate);
+                saveDefaultConfig(streamed);
+                ConfigUpdater.update(plugin, resourceName, toUpdate, ignoredSections);
+                ConfigUpdater.update(plugin, resourceName, streamed, ignoredSections, streaming);
+
+                assertArrayEquals(Files.readAllBytes(toUpdate.toPath()), Files.readAllBytes(streamed.toPath()));
+            }
+
+            //The ignored section keeps the formatting of the user either way
+            UpdateTemplate template = UpdateTemplate.compile("settings:\n  shops: {}\n  enabled: true\n");
+            String shops = "  shops:\n      #The user's own comment\n      \"1\":\n        price: 5.0\n        name: 'Shop'\n      tools: [pickaxe, \"axe\"]\n";
+            byte[] content = ("settings:\n" + shops + "obsolete: 1\n").getBytes(StandardCharsets.UTF_8);
+            Files.write(toUpdate.toPath(), content);
+            Files.write(streamed.toPath(), content);
+            ConfigUpdater.update(template, toUpdate, Collections.singletonList("settings.shops"));
+            ConfigUpdater.update(template, streamed, Collections.singletonList("settings.shops"), streaming);
+
+            assertEquals("settings:\n" + shops + "  enabled: true\n", new String(Files.readAllBytes(streamed.toPath()), StandardCharsets.UTF_8));
+            assertArrayEquals(Files.readAllBytes(toUpdate.toPath()), Files.readAllBytes(streamed.toPath()));
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            streamed.delete();
+        }
+    }
+
     private void saveDefaultConfig(File toUpdate) throws IOException, URISyntaxException {
         byte[] bytes = Files.readAllBytes(getResourcePath());
         BufferedWriter writer = Files.newBufferedWriter(toUpdate.toPath(), StandardCharsets.UTF_8);
@@ -146,6 +683,20 @@ public class ConfigUpdaterTest {
         writer.close();
     }
 
+    private static void writeJar(File jar, String entryName, byte[] content) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry(entryName));
+            out.write(content);
+            out.closeEntry();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return UpdateTemplate.readFully(stream);
+        }
+    }
+
     private Path getResourcePath() throws URISyntaxException {
         URL preUpdateUrl = getClass().getClassLoader().getResource(FILE_NAME);
         //noinspection ConstantConditions